@@ -28,6 +28,15 @@ repositories {
     mavenCentral()
 }
 
+// micro benchmarks, run with `./gradlew jmh`
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += output + compileClasspath
+}
+
+configurations[jmh.implementationConfigurationName].extendsFrom(configurations.testImplementation.get())
+configurations[jmh.runtimeOnlyConfigurationName].extendsFrom(configurations.testRuntimeOnly.get())
+
 dependencies {
     compileOnly("org.springframework.boot:spring-boot-starter-web")
     compileOnly("org.springframework.boot:spring-boot-starter-webflux")
@@ -43,10 +52,22 @@ dependencies {
 
     implementation("com.jayway.jsonpath:json-path:2.9.0")
     testImplementation("com.jayway.jsonpath:json-path-assert:2.9.0")
+
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 tasks.withType<Test> {
     useJUnitPlatform()
+    systemProperty("io.netty.leakDetection.level", "paranoid")
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "verification"
+    description = "Runs the JMH benchmarks."
+    mainClass = "org.openjdk.jmh.Main"
+    classpath = jmh.runtimeClasspath
+    args = providers.gradleProperty("jmhArgs").map { it.split(" ") }.getOrElse(listOf())
 }
 
 tasks.bootJar {
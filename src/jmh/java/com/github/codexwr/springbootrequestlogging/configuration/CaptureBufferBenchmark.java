@@ -0,0 +1,54 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FastByteArrayOutputStream;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Capture of one body in 8KB chunks: a new stream per request(as before) vs pooled capture buffers.
+ * Run with '-prof gc' to compare the allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaptureBufferBenchmark {
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param({"4", "64"})
+    private int kiloBytes;
+
+    private final CaptureBufferPool pool = new CaptureBufferPool(1024 * 1024, 16 * 1024 * 1024);
+    private byte[] chunk;
+
+    @Setup
+    public void setUp() {
+        chunk = new byte[CHUNK_SIZE];
+        for (int i = 0; i < chunk.length; i++) chunk[i] = (byte) ('a' + i % 26);
+    }
+
+    @Benchmark
+    public LogBody allocated() throws IOException {
+        var stream = new FastByteArrayOutputStream(1024);
+        for (int written = 0; written < kiloBytes * 1024; written += CHUNK_SIZE) {
+            stream.write(chunk, 0, Math.min(CHUNK_SIZE, kiloBytes * 1024 - written));
+        }
+        return LogBody.of(stream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public boolean pooled() {
+        var buffer = pool.newBuffer();
+        for (int written = 0; written < kiloBytes * 1024; written += CHUNK_SIZE) {
+            buffer.write(chunk, 0, Math.min(CHUNK_SIZE, kiloBytes * 1024 - written));
+        }
+        var hasText = buffer.toLogBody(StandardCharsets.UTF_8, buffer.size()).hasText();
+        buffer.release();
+        return hasText;
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON request body without mask rules: tree round-trip vs streaming compaction vs raw passthrough.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBodyCompactionBenchmark {
+    private static final String PATH = "/orders";
+
+    @Param({"1", "200"})
+    private int kiloBytes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<LoggingFilterProperties.PathJsonMask> jsonMasks = List.of(
+            new LoggingFilterProperties.PathJsonMask(HttpMethod.POST.name(), "/auth/**", Set.of("$..password"))
+    );
+    private DefaultRequestBodyMask compactMask;
+    private DefaultRequestBodyMask rawMask;
+    private String body;
+
+    @Setup
+    public void setUp() {
+        compactMask = new DefaultRequestBodyMask("****", jsonMasks, null, null, LoggingFilterProperties.UnmaskedJsonBodyMode.COMPACT);
+        rawMask = new DefaultRequestBodyMask("****", jsonMasks, null, null, LoggingFilterProperties.UnmaskedJsonBodyMode.RAW);
+
+        var builder = new StringBuilder("{\n  \"items\": [\n");
+        for (int i = 0; builder.length() < kiloBytes * 1024; i++) {
+            if (i > 0) builder.append(",\n");
+            builder.append("    { \"id\": ").append(i)
+                    .append(", \"name\": \"item-").append(i)
+                    .append("\", \"price\": ").append(i * 1.25)
+                    .append(", \"tags\": [ \"a\", \"b\" ], \"soldOut\": false }");
+        }
+        body = builder.append("\n  ]\n}\n").toString();
+    }
+
+    @Benchmark
+    public String treeRoundTrip() throws Exception {
+        return objectMapper.readValue(body, JsonNode.class).toString();
+    }
+
+    @Benchmark
+    public String streamingCompact() {
+        return compactMask.getMaskBody(HttpMethod.POST, PATH, MediaType.APPLICATION_JSON, body);
+    }
+
+    @Benchmark
+    public String raw() {
+        return rawMask.getMaskBody(HttpMethod.POST, PATH, MediaType.APPLICATION_JSON, body);
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Value redaction of a logged body, per MB of text.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueRedactionBenchmark {
+    @Param({"1", "4"})
+    private int megaBytes;
+
+    // percent of the records holding a secret
+    @Param({"0", "10"})
+    private int secretRatio;
+
+    private ValueRedactor valueRedactor;
+    private String body;
+
+    @Setup
+    public void setUp() {
+        var properties = new LoggingFilterProperties.ValueRedaction();
+        valueRedactor = new ValueRedactor("****", properties.getTokenPrefixes(), properties.isCardNumbers(), properties.isEmails());
+
+        var builder = new StringBuilder("{\"items\":[");
+        for (int i = 0; builder.length() < megaBytes * 1024 * 1024; i++) {
+            if (i > 0) builder.append(',');
+            builder.append("{\"id\":").append(1_700_000_000_000L + i)
+                    .append(",\"message\":\"order ").append(i).append(" shipped to the customer\"");
+            if (i % 100 < secretRatio)
+                builder.append(",\"note\":\"card 4111 1111 1111 1111, Bearer abcdefgh12345678, kim@example.com\"");
+            builder.append('}');
+        }
+        body = builder.append("]}").toString();
+    }
+
+    @Benchmark
+    public int redact() {
+        var output = new StringBuilder(body.length() + 16).append(body);
+        valueRedactor.redact(output, 0);
+        return output.length();
+    }
+
+    @Benchmark
+    public int copyOnly() {
+        return new StringBuilder(body.length() + 16).append(body).length();
+    }
+}
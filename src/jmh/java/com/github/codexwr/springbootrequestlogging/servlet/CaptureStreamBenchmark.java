@@ -0,0 +1,91 @@
+package com.github.codexwr.springbootrequestlogging.servlet;
+
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBufferPool;
+import com.github.codexwr.springbootrequestlogging.configuration.LogBody;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response body written through the capture stream: byte by byte(before bulk writes were forwarded) vs bulk,
+ * and a capture limit below the body size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaptureStreamBenchmark {
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param({"64", "1024"})
+    private int kiloBytes;
+
+    private byte[] chunk;
+
+    @Setup
+    public void setUp() {
+        chunk = new byte[CHUNK_SIZE];
+        for (int i = 0; i < chunk.length; i++) chunk[i] = (byte) ('a' + i % 26);
+    }
+
+    @Benchmark
+    public LogBody perByte(Blackhole blackhole) throws IOException {
+        var stream = new CachedOutputStream(new SinkOutputStream(blackhole));
+        for (int written = 0; written < kiloBytes * 1024; written += CHUNK_SIZE) {
+            for (byte b : chunk) stream.write(b);
+        }
+        return stream.getCachedLogBody(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public LogBody bulk(Blackhole blackhole) throws IOException {
+        var stream = new CachedOutputStream(new SinkOutputStream(blackhole));
+        for (int written = 0; written < kiloBytes * 1024; written += CHUNK_SIZE) {
+            stream.write(chunk, 0, CHUNK_SIZE);
+        }
+        return stream.getCachedLogBody(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public LogBody bulkLimited(Blackhole blackhole) throws IOException {
+        var stream = new CachedOutputStream(new SinkOutputStream(blackhole), 16 * 1024, CaptureBufferPool.unpooled());
+        for (int written = 0; written < kiloBytes * 1024; written += CHUNK_SIZE) {
+            stream.write(chunk, 0, CHUNK_SIZE);
+        }
+        return stream.getCachedLogBody(StandardCharsets.UTF_8);
+    }
+
+    private static class SinkOutputStream extends ServletOutputStream {
+        private final Blackhole blackhole;
+
+        private SinkOutputStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+
+        @Override
+        public void write(int b) {
+            blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            blackhole.consume(b);
+        }
+    }
+}
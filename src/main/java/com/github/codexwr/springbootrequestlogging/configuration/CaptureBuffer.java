@@ -0,0 +1,174 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Growable copy of a captured body, backed by an array of a {@link CaptureBufferPool}.
+ * <p>
+ * The array is taken from the pool on the first write, and given back by {@link #release()},
+ * after which writes are ignored and the buffer reads as empty. A {@link LogBody} of the buffer reads the array itself,
+ * so it must not be used after the release.
+ * <p>
+ * A buffer growing past the spill threshold of the pool moves to a memory-mapped temp file,
+ * so a large body does not stay on the heap. The file is deleted by the release.
+ */
+public final class CaptureBuffer {
+    private static final Logger log = LoggerFactory.getLogger(CaptureBuffer.class);
+    private static final byte[] EMPTY = new byte[0];
+
+    private final CaptureBufferPool pool;
+    private byte[] buffer = EMPTY;
+    @Nullable
+    private CaptureSpillFile spillFile;
+    private int size = 0;
+    private boolean released = false;
+    // the spill file could not grow, later bytes are not captured
+    private boolean full = false;
+
+    CaptureBuffer(CaptureBufferPool pool) {
+        this.pool = pool;
+    }
+
+    public void write(int b) {
+        if (released || !ensureCapacity(size + 1)) return;
+
+        if (spillFile != null) spillFile.put(size, (byte) b);
+        else buffer[size] = (byte) b;
+        size++;
+    }
+
+    public void write(byte[] b, int off, int len) {
+        if (released || len == 0 || !ensureCapacity(size + len)) return;
+
+        if (spillFile != null) spillFile.put(size, b, off, len);
+        else System.arraycopy(b, off, buffer, size, len);
+        size += len;
+    }
+
+    /**
+     * Copies the remaining bytes of the source, without moving its position.
+     */
+    public void write(ByteBuffer source) {
+        int len = source.remaining();
+        if (released || len == 0 || !ensureCapacity(size + len)) return;
+
+        if (spillFile != null) spillFile.put(size, source);
+        else source.duplicate().get(buffer, size, len);
+        size += len;
+    }
+
+    /**
+     * @return {@code false} if the bytes can not be kept
+     */
+    private boolean ensureCapacity(int capacity) {
+        if (full) return false;
+        if (spillFile != null) return ensureSpillCapacity(capacity);
+        if (capacity <= buffer.length) return true;
+        if (pool.isSpillRequired(capacity) && spill(capacity)) return true;
+
+        var grown = pool.acquire(Math.max(capacity, buffer.length * 2));
+        System.arraycopy(buffer, 0, grown, 0, size);
+        if (buffer != EMPTY) pool.release(buffer);
+        buffer = grown;
+        return true;
+    }
+
+    private boolean ensureSpillCapacity(int capacity) {
+        try {
+            spillFile.ensureCapacity(capacity);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.trace("Failed to grow the capture spill file {}", spillFile.getPath(), e);
+            full = true;
+            return false;
+        }
+    }
+
+    /**
+     * Moves the captured bytes to a spill file, and gives the array back to the pool.
+     *
+     * @return {@code false} if the file could not be created, the buffer then stays on the heap
+     */
+    private boolean spill(int capacity) {
+        try {
+            spillFile = pool.createSpillFile(Math.max(capacity, buffer.length * 2));
+        } catch (IOException | RuntimeException e) {
+            log.trace("Failed to create a capture spill file, the body is kept on the heap", e);
+            return false;
+        }
+
+        spillFile.put(0, buffer, 0, size);
+        if (buffer != EMPTY) pool.release(buffer);
+        buffer = EMPTY;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the bytes are kept in a spill file
+     */
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    /**
+     * @return a view of the captured bytes, not a copy
+     */
+    @Nonnull
+    public ByteBuffer asByteBuffer() {
+        if (spillFile != null) return spillFile.slice(size);
+
+        return ByteBuffer.wrap(buffer, 0, size);
+    }
+
+    /**
+     * @param originalLength length of the whole body, longer than the buffer if only its first bytes were captured,
+     *                       or {@link LogBody#UNKNOWN_LENGTH}
+     * @return a view of the captured bytes, not a copy
+     */
+    @Nonnull
+    public LogBody toLogBody(@Nonnull Charset charset, long originalLength) {
+        Assert.notNull(charset, "charset must not be null");
+
+        if (released) return LogBody.of(EMPTY, charset);
+        if (spillFile != null) return LogBody.of(spillFile.slice(size), originalLength == LogBody.UNKNOWN_LENGTH ? originalLength : Math.max(originalLength, size), charset);
+        if (originalLength > size || originalLength == LogBody.UNKNOWN_LENGTH) return LogBody.ofTruncated(buffer, 0, size, originalLength, charset);
+        return LogBody.of(buffer, 0, size, charset);
+    }
+
+    /**
+     * Gives the array back to the pool, and deletes the spill file. Calling it again does nothing.
+     */
+    public void release() {
+        if (released) return;
+
+        released = true;
+        if (buffer != EMPTY) pool.release(buffer);
+        buffer = EMPTY;
+        size = 0;
+
+        if (spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                log.trace("Failed to delete the capture spill file {}", spillFile.getPath(), e);
+            }
+            spillFile = null;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.util.Assert;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool of the byte arrays backing {@link CaptureBuffer}, shared by the requests.
+ * <p>
+ * Arrays are pooled by size class(powers of two, from 1KB up to the max buffer size),
+ * in stripes picked by the current thread, so threads of a server rarely meet on the same stripe.
+ * A stripe that is already locked is not waited for: the array is allocated or dropped instead.
+ * The pool keeps at most 'max-retained-size' bytes, the hit and miss counts can be used to size it.
+ * <p>
+ * A buffer growing past the spill threshold moves to a memory-mapped temp file in the spill directory({@link CaptureSpillFile}).
+ */
+public final class CaptureBufferPool {
+    private static final int MIN_BUFFER_SIZE = 1024;
+    private static final CaptureBufferPool UNPOOLED = new CaptureBufferPool(MIN_BUFFER_SIZE, 0);
+
+    private final int maxBufferSize;
+    private final long maxRetainedSize;
+    // negative if buffers never spill
+    private final long spillThreshold;
+    @Nullable
+    private final Path spillDirectory;
+    private final Stripe[] stripes;
+    private final AtomicLong retainedSize = new AtomicLong();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder spillCount = new LongAdder();
+
+    /**
+     * @param maxBufferSize   largest array kept in the pool, rounded up to a power of two
+     * @param maxRetainedSize total bytes kept in the pool, 0 disables the pool
+     */
+    public CaptureBufferPool(int maxBufferSize, long maxRetainedSize) {
+        this(maxBufferSize, maxRetainedSize, -1, null);
+    }
+
+    /**
+     * @param maxBufferSize   largest array kept in the pool, rounded up to a power of two
+     * @param maxRetainedSize total bytes kept in the pool, 0 disables the pool
+     * @param spillThreshold  a buffer growing past this size moves to a temp file, negative if buffers never spill
+     * @param spillDirectory  directory of the temp files, the default temp directory if {@code null}
+     */
+    public CaptureBufferPool(int maxBufferSize, long maxRetainedSize, long spillThreshold, @Nullable Path spillDirectory) {
+        Assert.isTrue(maxBufferSize > 0, "maxBufferSize must be positive");
+        Assert.isTrue(maxRetainedSize >= 0, "maxRetainedSize must not be negative");
+
+        this.maxBufferSize = sizeClassOf(Math.max(maxBufferSize, MIN_BUFFER_SIZE));
+        this.maxRetainedSize = maxRetainedSize;
+        this.spillThreshold = spillThreshold;
+        this.spillDirectory = spillDirectory;
+
+        int sizeClasses = indexOf(this.maxBufferSize) + 1;
+        var stripes = new Stripe[maxRetainedSize > 0 ? stripeCount() : 0];
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = new Stripe(sizeClasses);
+        this.stripes = stripes;
+    }
+
+    /**
+     * @return a pool that never keeps an array
+     */
+    @Nonnull
+    public static CaptureBufferPool unpooled() {
+        return UNPOOLED;
+    }
+
+    private static int stripeCount() {
+        return Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+    }
+
+    @Nonnull
+    public CaptureBuffer newBuffer() {
+        return new CaptureBuffer(this);
+    }
+
+    /**
+     * @return an array of at least the capacity, of its size class if it is pooled
+     */
+    byte[] acquire(int minCapacity) {
+        int size = sizeClassOf(Math.max(minCapacity, MIN_BUFFER_SIZE));
+        if (size > maxBufferSize || stripes.length == 0) {
+            missCount.increment();
+            return new byte[Math.max(size, minCapacity)];
+        }
+
+        var stripe = stripe();
+        if (stripe.lock.tryLock()) {
+            try {
+                var buffer = stripe.buffers[indexOf(size)].poll();
+                if (buffer != null) {
+                    retainedSize.addAndGet(-buffer.length);
+                    hitCount.increment();
+                    return buffer;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        missCount.increment();
+        return new byte[size];
+    }
+
+    /**
+     * The array must not be used after.
+     */
+    void release(byte[] buffer) {
+        int size = buffer.length;
+        if (size > maxBufferSize || stripes.length == 0 || Integer.bitCount(size) != 1 || size < MIN_BUFFER_SIZE) return;
+
+        if (retainedSize.addAndGet(size) > maxRetainedSize) {
+            retainedSize.addAndGet(-size);
+            return;
+        }
+
+        var stripe = stripe();
+        if (stripe.lock.tryLock()) {
+            try {
+                stripe.buffers[indexOf(size)].push(buffer);
+                return;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        retainedSize.addAndGet(-size);
+    }
+
+    boolean isSpillRequired(int capacity) {
+        return spillThreshold >= 0 && capacity > spillThreshold;
+    }
+
+    CaptureSpillFile createSpillFile(int capacity) throws IOException {
+        var spillFile = CaptureSpillFile.create(spillDirectory, capacity);
+        spillCount.increment();
+        return spillFile;
+    }
+
+    private Stripe stripe() {
+        return stripes[(int) (Thread.currentThread().getId() & (stripes.length - 1))];
+    }
+
+    private static int sizeClassOf(int capacity) {
+        int size = Integer.highestOneBit(capacity);
+        return size == capacity || size == 1 << 30 ? size : size << 1;
+    }
+
+    private static int indexOf(int sizeClass) {
+        return Integer.numberOfTrailingZeros(sizeClass) - Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+    }
+
+    public int getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+    public long getMaxRetainedSize() {
+        return maxRetainedSize;
+    }
+
+    public long getRetainedSize() {
+        return retainedSize.get();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getSpillThreshold() {
+        return spillThreshold;
+    }
+
+    /**
+     * @return number of buffers moved to a temp file
+     */
+    public long getSpillCount() {
+        return spillCount.sum();
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<byte[]>[] buffers;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Stripe(int sizeClasses) {
+            buffers = new ArrayDeque[sizeClasses];
+            for (int i = 0; i < sizeClasses; i++)
+                buffers[i] = new ArrayDeque<>();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import jakarta.annotation.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Temp file a {@link CaptureBuffer} moves to once it is past the spill threshold, written and read through a mapped region.
+ * <p>
+ * The region is mapped again, at least twice as large, when the body outgrows it.
+ * The file is deleted by {@link #close()}, a region still referenced is unmapped by the garbage collector.
+ */
+final class CaptureSpillFile implements Closeable {
+    private static final String PREFIX = "request-logging-";
+    private static final String SUFFIX = ".capture";
+
+    private final Path path;
+    private final FileChannel channel;
+    private MappedByteBuffer region;
+
+    private CaptureSpillFile(Path path, FileChannel channel, MappedByteBuffer region) {
+        this.path = path;
+        this.channel = channel;
+        this.region = region;
+    }
+
+    /**
+     * @param directory where the file is created, the default temp directory if {@code null}
+     */
+    static CaptureSpillFile create(@Nullable Path directory, int capacity) throws IOException {
+        var path = directory != null ? Files.createTempFile(directory, PREFIX, SUFFIX) : Files.createTempFile(PREFIX, SUFFIX);
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new CaptureSpillFile(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) channel.close();
+            Files.deleteIfExists(path);
+            throw e;
+        }
+    }
+
+    void ensureCapacity(int capacity) throws IOException {
+        if (capacity <= region.capacity()) return;
+
+        int grown = (int) Math.min(Integer.MAX_VALUE, Math.max(capacity, region.capacity() * 2L));
+        region = channel.map(FileChannel.MapMode.READ_WRITE, 0, grown);
+    }
+
+    void put(int index, byte b) {
+        region.put(index, b);
+    }
+
+    void put(int index, byte[] source, int offset, int length) {
+        region.put(index, source, offset, length);
+    }
+
+    /**
+     * Copies the remaining bytes of the source, without moving its position.
+     */
+    void put(int index, ByteBuffer source) {
+        region.put(index, source, source.position(), source.remaining());
+    }
+
+    /**
+     * @return a view of the first bytes of the region, not a copy
+     */
+    ByteBuffer slice(int length) {
+        return region.slice(0, length);
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -1,70 +1,40 @@
 package com.github.codexwr.springbootrequestlogging.configuration;
 
-import com.jayway.jsonpath.DocumentContext;
-import com.jayway.jsonpath.JsonPath;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.http.HttpMethod;
-import org.springframework.util.AntPathMatcher;
+import jakarta.annotation.Nullable;
+import org.springframework.http.MediaType;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentLruCache;
 
-import java.util.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
 
 class CommonBodyMask {
-    private static final Logger log = LoggerFactory.getLogger(CommonBodyMask.class);
-    protected static final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private static final int LENIENT_CACHE_SIZE = 64;
 
-    protected void initJsonPattern(Collection<LoggingFilterProperties.PathJsonMask> sources, Map<HttpMethod, Map<String, Set<String>>> targets) {
-        if (CollectionUtils.isEmpty(sources)) return;
+    // mask-json sets which are not compiled from the configuration(e.g. of a custom RoutePolicyResolver), bounded
+    // as a resolver may build a new set for each request
+    private final ConcurrentLruCache<Set<String>, CompiledJsonMasks> lenientJsonMasks = new ConcurrentLruCache<>(LENIENT_CACHE_SIZE, CompiledJsonMasks::lenient);
 
-        sources.forEach(src -> {
-            if (CollectionUtils.isEmpty(src.getMaskJson())) return;
-
-            targets.computeIfAbsent(src.getMethod(), k -> new HashMap<>())
-                    .computeIfAbsent(src.getPathPattern(), k -> new HashSet<>())
-                    .addAll(src.getMaskJson());
-        });
+    protected void appendJsonMask(StringBuilder output, LogBody body, Set<String> masks, String maskString) {
+        compiledOf(masks).mask(body, maskString, output);
     }
 
-    protected void initKeyPattern(Collection<LoggingFilterProperties.PathKeyMask> sources, Map<HttpMethod, Map<String, Set<String>>> targets) {
-        if (CollectionUtils.isEmpty(sources)) return;
-
-        sources.forEach(src -> {
-            if (CollectionUtils.isEmpty(src.getMaskKey())) return;
+    /**
+     * @return {@code null} if the body is to be captured and masked when printed
+     */
+    @Nullable
+    protected StreamingBodyMask newStreamingJsonMask(MediaType contentType, @Nullable Set<String> masks, String maskString, long maxMaskedLength) {
+        if (CollectionUtils.isEmpty(masks) || !contentType.isCompatibleWith(MediaType.APPLICATION_JSON)) return null;
 
-            targets.computeIfAbsent(src.getMethod(), k -> new HashMap<>())
-                    .computeIfAbsent(src.getPathPattern(), k -> new HashSet<>())
-                    .addAll(src.getMaskKey());
-        });
+        var charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        return compiledOf(masks).newStreamingMask(charset, maskString, maxMaskedLength);
     }
 
-    protected String getJsonMaksString(String jsonString, Set<String> masks, String maskString) {
-
-        DocumentContext doc;
-        try {
-            doc = JsonPath.parse(jsonString);
-        } catch (Exception ignore) {
-            return jsonString;
-        }
-
-        masks.forEach(jsonPath -> {
-            try {
-                doc.set(jsonPath, maskString);
-            } catch (Exception e) {
-                log.trace("JsonPath masking error: {}", jsonPath, e);
-            }
-        });
-
-        return doc.jsonString();
+    int lenientJsonMasksSize() {
+        return lenientJsonMasks.size();
     }
 
-    protected Set<String> getMaskPattern(String path, Map<String, Set<String>> patterns) {
-        if (CollectionUtils.isEmpty(patterns)) return null;
-
-        return patterns.entrySet().stream()
-                .filter(entry -> pathMatcher.match(entry.getKey(), path))
-                .findFirst()
-                .map(Map.Entry::getValue)
-                .orElse(null);
+    private CompiledJsonMasks compiledOf(Set<String> masks) {
+        return masks instanceof CompiledJsonMasks compiled ? compiled : lenientJsonMasks.get(masks);
     }
 }
@@ -0,0 +1,155 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.InvalidPathException;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 'mask-json' expressions and 'mask-keys' of a path pattern, compiled once.
+ * <p>
+ * A mask key is held as the deep scan expression of the property(e.g. {@code $..['password']}),
+ * which {@link JsonTokenMask} checks by a hash lookup, so the cost does not grow with the number of keys.
+ * <p>
+ * It is still a {@code Set<String>} of the expressions, so it can be handed out through {@link RoutePolicy}.
+ * Expressions are only added while the configuration is read.
+ */
+final class CompiledJsonMasks extends AbstractSet<String> {
+    private static final Logger log = LoggerFactory.getLogger(CompiledJsonMasks.class);
+
+    private final Set<String> expressions = new LinkedHashSet<>();
+    private final List<JsonPath> jsonPaths = new ArrayList<>();
+    // null if an expression is out of the subset JsonTokenMask supports
+    @Nullable
+    private JsonTokenMask tokenMask;
+
+    /**
+     * @throws IllegalArgumentException one of the expressions is not a valid JsonPath
+     */
+    void addExpressions(@Nullable Collection<String> expressions) {
+        if (expressions == null) return;
+
+        for (String expression : expressions) {
+            if (this.expressions.contains(expression)) continue;
+
+            jsonPaths.add(compile(expression));
+            this.expressions.add(expression);
+        }
+        tokenMask = JsonTokenMask.compile(this.expressions);
+    }
+
+    /**
+     * Masks the properties of the names at any depth of the document.
+     */
+    void addKeys(@Nullable Collection<String> keys) {
+        if (keys == null) return;
+
+        addExpressions(keys.stream().map(CompiledJsonMasks::deepScanExpression).toList());
+    }
+
+    private static String deepScanExpression(String key) {
+        return "$..['" + key.replace("\\", "\\\\").replace("'", "\\'") + "']";
+    }
+
+    /**
+     * Compiles the expressions of a set built outside of the configuration(e.g. a custom {@link RoutePolicyResolver}).
+     * Invalid expressions are skipped.
+     */
+    static CompiledJsonMasks lenient(Set<String> expressions) {
+        var masks = new CompiledJsonMasks();
+        for (String expression : expressions) {
+            try {
+                masks.jsonPaths.add(compile(expression));
+            } catch (IllegalArgumentException e) {
+                log.trace("JsonPath compile error: {}", expression, e);
+            }
+            masks.expressions.add(expression);
+        }
+        masks.tokenMask = JsonTokenMask.compile(masks.expressions);
+
+        return masks;
+    }
+
+    String mask(String jsonString, String maskString) {
+        if (tokenMask != null) {
+            var masked = tokenMask.mask(jsonString, maskString);
+            if (masked != null) return masked;
+        }
+
+        return maskWithJsonPath(jsonString, maskString);
+    }
+
+    void mask(LogBody body, String maskString, StringBuilder output) {
+        if (body.isTruncated()) {
+            // JsonPath can not read a cut document, and it must not be logged unmasked
+            if (tokenMask == null || !tokenMask.maskPartial(body, maskString, output)) output.append(maskString);
+            return;
+        }
+        if (tokenMask != null && tokenMask.mask(body, maskString, output)) return;
+
+        output.append(maskWithJsonPath(body.toString(), maskString));
+    }
+
+    /**
+     * @return {@code null} if an expression is out of the subset {@link JsonTokenMask} supports,
+     * or the body is not read as UTF-8
+     */
+    @Nullable
+    StreamingBodyMask newStreamingMask(Charset charset, String maskString, long maxMaskedLength) {
+        if (tokenMask == null || !(charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)))
+            return null;
+
+        return tokenMask.newStreamingMask(maskString, maxMaskedLength);
+    }
+
+    /**
+     * For expressions or documents that {@link JsonTokenMask} does not handle.
+     */
+    private String maskWithJsonPath(String jsonString, String maskString) {
+        DocumentContext doc;
+        try {
+            doc = JsonPath.parse(jsonString);
+        } catch (Exception ignore) {
+            return jsonString;
+        }
+
+        jsonPaths.forEach(jsonPath -> {
+            try {
+                doc.set(jsonPath, maskString);
+            } catch (Exception e) {
+                log.trace("JsonPath masking error: {}", jsonPath.getPath(), e);
+            }
+        });
+
+        return doc.jsonString();
+    }
+
+    private static JsonPath compile(String expression) {
+        try {
+            return JsonPath.compile(expression);
+        } catch (InvalidPathException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid mask-json JsonPath: '" + expression + "'", e);
+        }
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return Collections.unmodifiableSet(expressions).iterator();
+    }
+
+    @Override
+    public int size() {
+        return expressions.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return expressions.contains(o);
+    }
+}
@@ -4,60 +4,50 @@ import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 class DefaultHttpHeaderMask implements HttpHeaderMask {
-    private static final AntPathMatcher pathMatcher = new AntPathMatcher();
-
-    // <Method, <path pattern, maskKey>>
     private final String maskOverlay;
-    private final Set<String> defaultMaks;
-    private final Map<HttpMethod, Map<String, Set<String>>> patternMasks = new HashMap<>();
+    // the rules of a path, for the overload taking the method and path
+    private final RoutePolicyResolver routePolicyResolver;
 
     public DefaultHttpHeaderMask(String maskOverlay, @Nullable Set<String> defaultMasks, @Nullable Collection<LoggingFilterProperties.PathKeyMask> pathKeyMasks) {
-        this.maskOverlay = maskOverlay;
-
-        if (CollectionUtils.isEmpty(defaultMasks))
-            this.defaultMaks = Collections.emptySet();
-        else
-            this.defaultMaks = defaultMasks.stream()
-                    .map(String::toLowerCase)
-                    .collect(Collectors.toUnmodifiableSet());
+        this(maskOverlay, DefaultRoutePolicyResolver.of(properties -> {
+            properties.setDefaultHeaderMasks(defaultMasks);
+            properties.setPathHeaderMask(pathKeyMasks != null ? List.copyOf(pathKeyMasks) : null);
+        }));
+    }
 
-        if (CollectionUtils.isEmpty(pathKeyMasks)) return;
-        for (LoggingFilterProperties.PathKeyMask pathKeyMask : pathKeyMasks) {
-            if (CollectionUtils.isEmpty(pathKeyMask.getMaskKey())) continue;
+    /**
+     * @param routePolicyResolver resolves the rules of a path for the overload taking the method and path,
+     *                            so the configuration is compiled once, by the resolver
+     */
+    public DefaultHttpHeaderMask(String maskOverlay, @Nonnull RoutePolicyResolver routePolicyResolver) {
+        Assert.notNull(routePolicyResolver, "routePolicyResolver must not be null");
 
-            patternMasks.computeIfAbsent(pathKeyMask.getMethod(), k -> new HashMap<>())
-                    .computeIfAbsent(pathKeyMask.getPathPattern(), k -> new HashSet<>())
-                    .addAll(pathKeyMask.getMaskKey().stream().map(String::toLowerCase).toList());
-        }
+        this.maskOverlay = maskOverlay;
+        this.routePolicyResolver = routePolicyResolver;
     }
 
     @Override
     public HttpHeaders getMaskingHeaders(@Nonnull HttpMethod method, @Nonnull String path, @Nonnull HttpHeaders headers) {
         Assert.notNull(method, "method must not be null");
         Assert.notNull(path, "path must not be null");
-        Assert.notNull(headers, "headers must not be null");
-
-        var patterns = patternMasks.get(method);
-        if (CollectionUtils.isEmpty(patterns))
-            return generateHeaderMask(headers, defaultMaks);
 
-        var pattern = patterns.entrySet().stream()
-                .filter(entry -> pathMatcher.match(entry.getKey(), path))
-                .findFirst()
-                .orElse(null);
+        return getMaskingHeaders(routePolicyResolver.resolve(method, path), headers);
+    }
 
-        if (pattern == null)
-            return generateHeaderMask(headers, defaultMaks);
+    @Override
+    public HttpHeaders getMaskingHeaders(@Nonnull RoutePolicy policy, @Nonnull HttpHeaders headers) {
+        Assert.notNull(policy, "policy must not be null");
+        Assert.notNull(headers, "headers must not be null");
 
-        return generateHeaderMask(headers, pattern.getValue());
+        return generateHeaderMask(headers, policy.headerMaskKeys());
     }
 
     @SuppressWarnings("DataFlowIssue")
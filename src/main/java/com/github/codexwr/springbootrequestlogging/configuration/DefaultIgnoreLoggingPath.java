@@ -3,16 +3,13 @@ package com.github.codexwr.springbootrequestlogging.configuration;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import org.springframework.http.HttpMethod;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
-import java.util.*;
+import java.util.Collection;
 
 class DefaultIgnoreLoggingPath implements IgnoreLoggingPath {
-    private static final AntPathMatcher pathMatcher = new AntPathMatcher();
-
-    private final Map<HttpMethod, Set<String>> ignoredPatterns = new HashMap<>();
+    private final RoutePatternIndex<String> ignoredPatterns = new RoutePatternIndex<>();
 
     public DefaultIgnoreLoggingPath(@Nullable  Collection<LoggingFilterProperties.ExcludeLoggingPath> excludes) {
         if (CollectionUtils.isEmpty(excludes)) return;
@@ -21,8 +18,7 @@ class DefaultIgnoreLoggingPath implements IgnoreLoggingPath {
             if (CollectionUtils.isEmpty(exclude.getPathPatterns()))
                 continue;
 
-            ignoredPatterns.computeIfAbsent(exclude.getMethod(), k -> new HashSet<>())
-                    .addAll(exclude.getPathPatterns());
+            exclude.getPathPatterns().forEach(pattern -> ignoredPatterns.computeIfAbsent(exclude.getMethod(), pattern, k -> k));
         }
     }
 
@@ -31,9 +27,13 @@ class DefaultIgnoreLoggingPath implements IgnoreLoggingPath {
         Assert.notNull(method, "method must not be null");
         Assert.notNull(path, "path must not be null");
 
-        var ignorePatterns =  ignoredPatterns.get(method);
-        if (CollectionUtils.isEmpty(ignorePatterns)) return false;
+        return ignoredPatterns.matches(method, path);
+    }
+
+    @Override
+    public boolean isMatch(@Nonnull RoutePolicy policy) {
+        Assert.notNull(policy, "policy must not be null");
 
-        return ignorePatterns.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+        return policy.ignored();
     }
 }
@@ -17,6 +17,8 @@ import java.util.Map;
 
 @RequiredArgsConstructor
 class DefaultLogPrinter implements LogPrinter {
+    private static final String MASKED_REQUEST_BODY_ATTRIBUTE = DefaultLogPrinter.class.getName() + ".maskedRequestBody";
+
     private final Logger logger = LoggerFactory.getLogger("LogPrinter");
 
     private final LoggingFilterProperties properties;
@@ -24,6 +26,9 @@ class DefaultLogPrinter implements LogPrinter {
     private final RequestBodyMask requestBodyMask;
     private final ResponseBodyMask responseBodyMask;
     private final UsernameProvider usernameProvider;
+    private final RoutePolicyResolver routePolicyResolver;
+    @Nullable
+    private final ValueRedactor valueRedactor;
 
     @Nullable
     @Override
@@ -31,6 +36,36 @@ class DefaultLogPrinter implements LogPrinter {
         return usernameProvider;
     }
 
+    @Override
+    public boolean isEnabled() {
+        return logger.isInfoEnabled();
+    }
+
+    @Override
+    public boolean includes(@Nonnull LoggingFilterProperties.DefaultLogItemType itemType) {
+        var included = switch (itemType) {
+            case HEADER -> properties.isIncludeHeaders();
+            case CLIENT_INFO, USERNAME -> properties.isIncludeClientInfo();
+            case REQUEST_BODY -> properties.isIncludeRequestBody();
+            case RESPONSE_BODY -> properties.isIncludeResponseBody();
+            default -> true;
+        };
+
+        return included && (properties.getDefaultRequestLogItems().contains(itemType) || properties.getDefaultResponseLogItems().contains(itemType));
+    }
+
+    @Override
+    @Nullable
+    public StreamingBodyMask newStreamingMask(@Nonnull RoutePolicy policy, @Nonnull LoggingFilterProperties.DefaultLogItemType itemType, @Nonnull MediaType contentType, long maxMaskedLength) {
+        if (!includes(itemType)) return null;
+
+        return switch (itemType) {
+            case REQUEST_BODY -> requestBodyMask.newStreamingMask(policy, contentType, maxMaskedLength);
+            case RESPONSE_BODY -> responseBodyMask.newStreamingMask(policy, contentType, maxMaskedLength);
+            default -> null;
+        };
+    }
+
     @Override
     public void request(@Nonnull LogItem logItem) {
         final var msg = new StringBuilder();
@@ -57,14 +92,15 @@ class DefaultLogPrinter implements LogPrinter {
     }
 
     private void assembleLogItem(StringBuilder msg, List<LoggingFilterProperties.DefaultLogItemType> logItemTypes, LogItem logItem) {
+        final var policy = new RoutePolicyHolder(logItem);
         for (LoggingFilterProperties.DefaultLogItemType logItemType : logItemTypes) {
             switch (logItemType) {
                 case URL -> assembleUrl(msg, logItem.httpMethod(), logItem.url(), logItem.queryString());
-                case HEADER -> assembleHeader(msg, logItem.httpMethod(), logItem.url(), logItem.header());
+                case HEADER -> assembleHeader(msg, policy, logItem.header());
                 case CLIENT_INFO -> assembleClientInfo(msg, logItem.remoteAddr(), logItem.sessionId());
                 case USERNAME -> assembleUsername(msg);
-                case REQUEST_BODY -> assembleRequestBody(msg, logItem.httpMethod(), logItem.url(), logItem.requestBodyContentType(), logItem.requestBody());
-                case RESPONSE_BODY -> assembleResponseBody(msg, logItem.httpMethod(), logItem.url(), logItem.responseBodyContentType(), logItem.responseBody());
+                case REQUEST_BODY -> assembleRequestBody(msg, policy, logItem);
+                case RESPONSE_BODY -> assembleResponseBody(msg, policy, logItem.responseBodyContentType(), logItem.responseLogBody());
                 case EXTRA_INFO -> assembleExtraInfo(msg, logItem.extraInfo());
             }
         }
@@ -85,26 +121,52 @@ class DefaultLogPrinter implements LogPrinter {
         msg.append("> ");
     }
 
-    private void assembleHeader(StringBuilder msg, HttpMethod httpMethod, String url, HttpHeaders header) {
+    private void assembleHeader(StringBuilder msg, RoutePolicyHolder policy, HttpHeaders header) {
         if (!properties.isIncludeHeaders() || header == null) return;
 
-        var maskHeader = headerMask.getMaskingHeaders(httpMethod, url, header);
+        var maskHeader = headerMask.getMaskingHeaders(policy.get(), header);
         msg.append(", headers=").append(maskHeader);
     }
 
-    private void assembleRequestBody(StringBuilder msg, HttpMethod httpMethod, String url, MediaType bodyContentType, String body) {
-        if (!properties.isIncludeRequestBody() || !StringUtils.hasText(body)) return;
+    private void assembleRequestBody(StringBuilder msg, RoutePolicyHolder policy, LogItem logItem) {
+        var body = logItem.requestLogBody();
+        if (!properties.isIncludeRequestBody() || body == null || !body.hasText()) return;
 
-        var maskBody = requestBodyMask.getMaskBody(httpMethod, url, bodyContentType, body);
-        msg.append(", requestBody=").append(maskBody);
+        msg.append(", requestBody=");
 
+        // the request body can be logged on both lines of a request, so it is masked once
+        var attributes = logItem.attributes();
+        if (attributes != null && attributes.get(MASKED_REQUEST_BODY_ATTRIBUTE) instanceof String maskBody) {
+            msg.append(maskBody);
+            return;
+        }
+
+        int start = msg.length();
+        if (body.isMasked()) msg.append(body);
+        else requestBodyMask.appendMaskBody(policy.get(), logItem.requestBodyContentType(), body, msg);
+        if (valueRedactor != null) valueRedactor.redact(msg, start);
+        assembleTruncation(msg, body);
+
+        if (attributes != null && properties.getDefaultResponseLogItems().contains(LoggingFilterProperties.DefaultLogItemType.REQUEST_BODY))
+            attributes.putIfAbsent(MASKED_REQUEST_BODY_ATTRIBUTE, msg.substring(start));
+    }
+
+    private void assembleResponseBody(StringBuilder msg, RoutePolicyHolder policy, MediaType bodyContentType, LogBody body) {
+        if (!properties.isIncludeResponseBody() || body == null || !body.hasText()) return;
+
+        msg.append(", responseBody=");
+        int start = msg.length();
+        if (body.isMasked()) msg.append(body);
+        else responseBodyMask.appendMaskBody(policy.get(), bodyContentType, body, msg);
+        if (valueRedactor != null) valueRedactor.redact(msg, start);
+        assembleTruncation(msg, body);
     }
 
-    private void assembleResponseBody(StringBuilder msg, HttpMethod httpMethod, String url, MediaType bodyContentType, String body) {
-        if (!properties.isIncludeResponseBody() || !StringUtils.hasText(body)) return;
+    private void assembleTruncation(StringBuilder msg, LogBody body) {
+        if (!body.isTruncated()) return;
 
-        var maskBody = responseBodyMask.getMaskBody(httpMethod, url, bodyContentType, body);
-        msg.append(", responseBody=").append(maskBody);
+        if (body.getOriginalLength() == LogBody.UNKNOWN_LENGTH) msg.append("...(truncated)");
+        else msg.append("...(truncated, ").append(body.getOriginalLength()).append(" bytes)");
     }
 
     private void assembleUsername(StringBuilder msg) {
@@ -132,4 +194,24 @@ class DefaultLogPrinter implements LogPrinter {
         if (properties.isIncludeQueryString() && StringUtils.hasText(queryString))
             msg.append("?").append(queryString);
     }
+
+    /**
+     * Uses the policy attached by the filter, and only resolves it when a log item actually needs it.
+     */
+    private class RoutePolicyHolder {
+        private final LogItem logItem;
+        private RoutePolicy policy;
+
+        private RoutePolicyHolder(LogItem logItem) {
+            this.logItem = logItem;
+            this.policy = logItem.routePolicy();
+        }
+
+        private RoutePolicy get() {
+            if (policy == null)
+                policy = routePolicyResolver.resolve(logItem.httpMethod(), logItem.url());
+
+            return policy;
+        }
+    }
 }
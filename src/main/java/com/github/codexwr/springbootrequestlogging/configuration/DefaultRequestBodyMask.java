@@ -2,7 +2,6 @@ package com.github.codexwr.springbootrequestlogging.configuration;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
@@ -11,8 +10,9 @@ import org.springframework.http.MediaType;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
+import java.io.IOException;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -20,50 +20,149 @@ class DefaultRequestBodyMask extends CommonBodyMask implements RequestBodyMask {
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private final String maskOverlay;
-    // <method, <path pattern, mask-json>>
-    private final Map<HttpMethod, Map<String, Set<String>>> jsonMasks = new HashMap<>();
-    // <method, <path pattern, mask-key>>
-    private final Map<HttpMethod, Map<String, Set<String>>> formMasks = new HashMap<>();
+    private final LoggingFilterProperties.UnmaskedJsonBodyMode unmaskedJsonBodyMode;
+    // the rules of a path, for the overload taking the method and path
+    private final RoutePolicyResolver routePolicyResolver;
 
     public DefaultRequestBodyMask(String maskOverlay, @Nullable Collection<LoggingFilterProperties.PathJsonMask> jsonMasks, @Nullable Collection<LoggingFilterProperties.PathKeyMask> formMasks) {
-        this.maskOverlay = maskOverlay;
+        this(maskOverlay, jsonMasks, formMasks, null);
+    }
+
+    public DefaultRequestBodyMask(String maskOverlay, @Nullable Collection<LoggingFilterProperties.PathJsonMask> jsonMasks, @Nullable Collection<LoggingFilterProperties.PathKeyMask> formMasks, @Nullable Collection<String> jsonMaskKeys) {
+        this(maskOverlay, jsonMasks, formMasks, jsonMaskKeys, LoggingFilterProperties.UnmaskedJsonBodyMode.COMPACT);
+    }
+
+    public DefaultRequestBodyMask(String maskOverlay, @Nullable Collection<LoggingFilterProperties.PathJsonMask> jsonMasks, @Nullable Collection<LoggingFilterProperties.PathKeyMask> formMasks, @Nullable Collection<String> jsonMaskKeys, @Nonnull LoggingFilterProperties.UnmaskedJsonBodyMode unmaskedJsonBodyMode) {
+        this(maskOverlay, DefaultRoutePolicyResolver.of(properties -> {
+            properties.setRequestJsonBodyMasks(jsonMasks != null ? List.copyOf(jsonMasks) : null);
+            properties.setRequestFormDataMasks(formMasks != null ? List.copyOf(formMasks) : null);
+            properties.setJsonMaskKeys(jsonMaskKeys != null ? Set.copyOf(jsonMaskKeys) : null);
+        }), unmaskedJsonBodyMode);
+    }
+
+    /**
+     * @param routePolicyResolver resolves the rules of a path for the overload taking the method and path,
+     *                            so the configuration is compiled once, by the resolver
+     */
+    public DefaultRequestBodyMask(String maskOverlay, @Nonnull RoutePolicyResolver routePolicyResolver, @Nonnull LoggingFilterProperties.UnmaskedJsonBodyMode unmaskedJsonBodyMode) {
+        Assert.notNull(routePolicyResolver, "routePolicyResolver must not be null");
+        Assert.notNull(unmaskedJsonBodyMode, "unmaskedJsonBodyMode must not be null");
 
-        initJsonPattern(jsonMasks, this.jsonMasks);
-        initKeyPattern(formMasks, this.formMasks);
+        this.maskOverlay = maskOverlay;
+        this.routePolicyResolver = routePolicyResolver;
+        this.unmaskedJsonBodyMode = unmaskedJsonBodyMode;
     }
 
     @Override
     public String getMaskBody(@Nonnull HttpMethod method, @Nonnull String path, @Nonnull MediaType contentType, @Nonnull String requestBody) {
         Assert.notNull(method, "method must not be null");
         Assert.notNull(path, "path must not be null");
+
+        return getMaskBody(routePolicyResolver.resolve(method, path), contentType, requestBody);
+    }
+
+    @Override
+    public String getMaskBody(@Nonnull RoutePolicy policy, @Nonnull MediaType contentType, @Nonnull String requestBody) {
         Assert.notNull(contentType, "contentType must not be null");
         Assert.notNull(requestBody, "requestBody must not be null");
 
+        var output = new StringBuilder(requestBody.length());
+        appendMaskBody(policy, contentType, LogBody.of(requestBody), output);
+        return output.toString();
+    }
+
+    @Override
+    public void appendMaskBody(@Nonnull RoutePolicy policy, @Nonnull MediaType contentType, @Nonnull LogBody requestBody, @Nonnull StringBuilder output) {
+        Assert.notNull(policy, "policy must not be null");
+        Assert.notNull(contentType, "contentType must not be null");
+        Assert.notNull(requestBody, "requestBody must not be null");
+        Assert.notNull(output, "output must not be null");
+
         if (contentType.isCompatibleWith(MediaType.APPLICATION_JSON))
-            return generateJsonMask(method, path, requestBody);
+            appendJsonMask(output, policy.requestJsonMasks(), requestBody);
         else if (contentType.isCompatibleWith(MediaType.APPLICATION_FORM_URLENCODED) || contentType.isCompatibleWith(MediaType.MULTIPART_FORM_DATA))
-            return generateFormMask(method, path, requestBody);
+            appendFormMask(output, policy.requestFormMaskKeys(), requestBody);
         else
-            return requestBody;
+            output.append(requestBody);
     }
 
-    public String generateJsonMask(@Nonnull HttpMethod method, @Nonnull String path, @Nonnull String requestBody) {
-        var patterns = jsonMasks.get(method);
-        var masks = getMaskPattern(path, patterns);
+    @Override
+    @Nullable
+    public StreamingBodyMask newStreamingMask(@Nonnull RoutePolicy policy, @Nonnull MediaType contentType, long maxMaskedLength) {
+        Assert.notNull(policy, "policy must not be null");
+        Assert.notNull(contentType, "contentType must not be null");
+
+        return newStreamingJsonMask(contentType, policy.requestJsonMasks(), maskOverlay, maxMaskedLength);
+    }
+
+    private void appendJsonMask(StringBuilder output, @Nullable Set<String> masks, LogBody requestBody) {
         if (CollectionUtils.isEmpty(masks)) {
-            try {
-                return objectMapper.readValue(requestBody, JsonNode.class).toString();
-            } catch (JsonProcessingException e) {
-                return requestBody;
+            switch (unmaskedJsonBodyMode) {
+                case COMPACT -> appendCompactJson(output, requestBody);
+                case RAW -> output.append(requestBody);
+            }
+            return;
+        }
+
+        appendJsonMask(output, requestBody, masks, maskOverlay);
+    }
+
+    /**
+     * Same output as {@code objectMapper.readValue(json, JsonNode.class).toString()}, without building the tree.
+     */
+    private void appendCompactJson(StringBuilder output, LogBody requestBody) {
+        int start = output.length();
+        try (var parser = JsonTokenMask.createParser(objectMapper.getFactory(), requestBody);
+             var generator = objectMapper.getFactory().createGenerator(new StringBuilderWriter(output))) {
+            if (parser.nextToken() != null) {
+                generator.copyCurrentStructure(parser);
+                return;
             }
+        } catch (IOException ignore) {
         }
 
-        return getJsonMaksString(requestBody, masks, maskOverlay);
+        output.setLength(start);
+        output.append(requestBody);
+    }
+
+    /**
+     * Parameters captured from a form or multipart request are written as JSON once, with the masked keys replaced.
+     */
+    private void appendFormMask(StringBuilder output, @Nullable Set<String> masks, LogBody requestBody) {
+        var formData = requestBody.getFormData();
+        if (formData == null) {
+            output.append(generateFormMask(masks, requestBody.toString()));
+            return;
+        }
+        if (CollectionUtils.isEmpty(masks)) {
+            output.append(requestBody);
+            return;
+        }
+
+        int start = output.length();
+        try (var generator = objectMapper.getFactory().createGenerator(new StringBuilderWriter(output))) {
+            generator.writeStartObject();
+            for (var entry : formData.entrySet()) {
+                generator.writeFieldName(entry.getKey());
+                if (masks.contains(entry.getKey())) {
+                    generator.writeString(maskOverlay);
+                    continue;
+                }
+
+                generator.writeStartArray();
+                for (String value : entry.getValue())
+                    generator.writeString(value);
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            // never log the parameters unmasked
+            output.setLength(start);
+            output.append(maskOverlay);
+        }
     }
 
-    private String generateFormMask(HttpMethod method, String path, String requestBody) {
-        var patterns = formMasks.get(method);
-        var masks = getMaskPattern(path, patterns);
+    private String generateFormMask(@Nullable Set<String> masks, String requestBody) {
         if (CollectionUtils.isEmpty(masks)) return requestBody;
 
         try {
@@ -8,35 +8,74 @@ import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
 
 class DefaultResponseBodyMask extends CommonBodyMask implements ResponseBodyMask {
 
     private final String maskOverlay;
-    // <method, <path pattern, mask-json>>
-    private final Map<HttpMethod, Map<String, Set<String>>> jsonMasks = new HashMap<>();
+    // the rules of a path, for the overload taking the method and path
+    private final RoutePolicyResolver routePolicyResolver;
 
     public DefaultResponseBodyMask(String maskOverlay, @Nullable Collection<LoggingFilterProperties.PathJsonMask> jsonMasks) {
-        this.maskOverlay = maskOverlay;
+        this(maskOverlay, jsonMasks, null);
+    }
+
+    public DefaultResponseBodyMask(String maskOverlay, @Nullable Collection<LoggingFilterProperties.PathJsonMask> jsonMasks, @Nullable Collection<String> jsonMaskKeys) {
+        this(maskOverlay, DefaultRoutePolicyResolver.of(properties -> {
+            properties.setResponseJsonBodyMasks(jsonMasks != null ? List.copyOf(jsonMasks) : null);
+            properties.setJsonMaskKeys(jsonMaskKeys != null ? Set.copyOf(jsonMaskKeys) : null);
+        }));
+    }
+
+    /**
+     * @param routePolicyResolver resolves the rules of a path for the overload taking the method and path,
+     *                            so the configuration is compiled once, by the resolver
+     */
+    public DefaultResponseBodyMask(String maskOverlay, @Nonnull RoutePolicyResolver routePolicyResolver) {
+        Assert.notNull(routePolicyResolver, "routePolicyResolver must not be null");
 
-        initJsonPattern(jsonMasks, this.jsonMasks);
+        this.maskOverlay = maskOverlay;
+        this.routePolicyResolver = routePolicyResolver;
     }
 
     @Override
     public String getMaskBody(@Nonnull HttpMethod method, @Nonnull String path, @Nonnull MediaType contentType, @Nonnull String responseBody) {
         Assert.notNull(method, "method must not be null");
         Assert.notNull(path, "path must not be null");
+
+        return getMaskBody(routePolicyResolver.resolve(method, path), contentType, responseBody);
+    }
+
+    @Override
+    public String getMaskBody(@Nonnull RoutePolicy policy, @Nonnull MediaType contentType, @Nonnull String responseBody) {
+        Assert.notNull(responseBody, "responseBody must not be null");
+
+        var output = new StringBuilder(responseBody.length());
+        appendMaskBody(policy, contentType, LogBody.of(responseBody), output);
+        return output.toString();
+    }
+
+    @Override
+    public void appendMaskBody(@Nonnull RoutePolicy policy, @Nonnull MediaType contentType, @Nonnull LogBody responseBody, @Nonnull StringBuilder output) {
+        Assert.notNull(policy, "policy must not be null");
         Assert.notNull(contentType, "contentType must not be null");
         Assert.notNull(responseBody, "responseBody must not be null");
+        Assert.notNull(output, "output must not be null");
 
         Assert.state(contentType.isCompatibleWith(MediaType.APPLICATION_JSON), "DefaultResponseBodyMask is not compatible with except MediaType.APPLICATION_JSON");
 
-        var patterns = jsonMasks.get(method);
-        var masks = getMaskPattern(path, patterns);
-        if (CollectionUtils.isEmpty(masks)) return responseBody;
+        var masks = policy.responseJsonMasks();
+        if (CollectionUtils.isEmpty(masks)) output.append(responseBody);
+        else appendJsonMask(output, responseBody, masks, maskOverlay);
+    }
+
+    @Override
+    @Nullable
+    public StreamingBodyMask newStreamingMask(@Nonnull RoutePolicy policy, @Nonnull MediaType contentType, long maxMaskedLength) {
+        Assert.notNull(policy, "policy must not be null");
+        Assert.notNull(contentType, "contentType must not be null");
 
-        return getJsonMaksString(responseBody, masks, maskOverlay);
+        return newStreamingJsonMask(contentType, policy.responseJsonMasks(), maskOverlay, maxMaskedLength);
     }
 }
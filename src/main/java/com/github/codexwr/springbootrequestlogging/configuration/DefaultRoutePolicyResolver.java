@@ -0,0 +1,201 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+class DefaultRoutePolicyResolver implements RoutePolicyResolver {
+    // <method, <path pattern, rules>>
+    private final RoutePatternIndex<RouteRules> routeRules = new RoutePatternIndex<>();
+    private final Set<String> defaultHeaderMasks;
+    private final Set<String> jsonMaskKeys;
+    // used when no pattern defines the json rule, holds only 'json-mask-keys'
+    private final CompiledJsonMasks defaultJsonMasks = new CompiledJsonMasks();
+    private final long defaultMaxBodyCaptureSize;
+
+    /**
+     * A resolver of only the rules set on empty properties, for a mask built without the shared resolver.
+     */
+    static RoutePolicyResolver of(Consumer<LoggingFilterProperties> rules) {
+        var properties = new LoggingFilterProperties();
+        rules.accept(properties);
+        return new DefaultRoutePolicyResolver(properties);
+    }
+
+    public DefaultRoutePolicyResolver(@Nonnull LoggingFilterProperties properties) {
+        this.defaultHeaderMasks = toLowerCase(properties.getDefaultHeaderMasks());
+        this.jsonMaskKeys = properties.getJsonMaskKeys() != null ? properties.getJsonMaskKeys() : Set.of();
+        this.defaultJsonMasks.addKeys(jsonMaskKeys);
+        this.defaultMaxBodyCaptureSize = toCaptureSize(properties.getMaxBodyCaptureSize());
+
+        if (!CollectionUtils.isEmpty(properties.getExcludeLoggingPaths())) {
+            properties.getExcludeLoggingPaths().forEach(src -> src.getPathPatterns()
+                    .forEach(pattern -> rules(src.getMethod(), pattern).ignored = true));
+        }
+
+        initKeyRule(properties.getPathHeaderMask(), rules -> rules.headerMaskKeys, true);
+        initJsonRule(properties.getRequestJsonBodyMasks(), rules -> rules.requestJsonMasks);
+        initKeyRule(properties.getRequestFormDataMasks(), rules -> rules.requestFormMaskKeys, false);
+        initJsonRule(properties.getResponseJsonBodyMasks(), rules -> rules.responseJsonMasks);
+        initCaptureSizeRule(properties.getPathBodyCaptureSizes());
+    }
+
+    /**
+     * Only the patterns sharing the literal prefix of the path are tested, and the rules are taken as they are,
+     * not copied.
+     */
+    @Nonnull
+    @Override
+    public RoutePolicy resolve(@Nonnull HttpMethod method, @Nonnull String path) {
+        Assert.notNull(method, "method must not be null");
+        Assert.notNull(path, "path must not be null");
+
+        var matches = routeRules.getMatches(method, path);
+        boolean ignored = false;
+        Rule<Set<String>> headerMaskKeys = null;
+        Rule<CompiledJsonMasks> requestJsonMasks = null;
+        Rule<Set<String>> requestFormMaskKeys = null;
+        Rule<CompiledJsonMasks> responseJsonMasks = null;
+        RouteRules captureSize = null;
+
+        // each rule is taken from the first matching pattern that defines it
+        for (RouteRules rules : matches) {
+            ignored |= rules.ignored;
+            headerMaskKeys = Rule.first(headerMaskKeys, rules.headerMaskKeys);
+            requestJsonMasks = Rule.first(requestJsonMasks, rules.requestJsonMasks);
+            requestFormMaskKeys = Rule.first(requestFormMaskKeys, rules.requestFormMaskKeys);
+            responseJsonMasks = Rule.first(responseJsonMasks, rules.responseJsonMasks);
+            if (rules.captureSizeOrder < (captureSize != null ? captureSize.captureSizeOrder : Integer.MAX_VALUE))
+                captureSize = rules;
+        }
+
+        return new RoutePolicy(method, path, ignored,
+                Rule.viewOf(headerMaskKeys, defaultHeaderMasks),
+                Rule.viewOf(requestJsonMasks, defaultJsonMasks),
+                Rule.viewOf(requestFormMaskKeys, Set.of()),
+                Rule.viewOf(responseJsonMasks, defaultJsonMasks),
+                captureSize != null ? captureSize.maxBodyCaptureSize : defaultMaxBodyCaptureSize
+        );
+    }
+
+    private void initKeyRule(@Nullable Collection<LoggingFilterProperties.PathKeyMask> sources, Function<RouteRules, Rule<Set<String>>> ruleOf, boolean ignoreCase) {
+        if (CollectionUtils.isEmpty(sources)) return;
+
+        int order = 0;
+        for (LoggingFilterProperties.PathKeyMask src : sources) {
+            if (CollectionUtils.isEmpty(src.getMaskKey())) continue;
+
+            var rule = ruleOf.apply(rules(src.getMethod(), src.getPathPattern()));
+            rule.define(order++);
+            rule.values.addAll(ignoreCase ? toLowerCase(src.getMaskKey()) : src.getMaskKey());
+        }
+    }
+
+    private void initJsonRule(@Nullable Collection<LoggingFilterProperties.PathJsonMask> sources, Function<RouteRules, Rule<CompiledJsonMasks>> ruleOf) {
+        if (CollectionUtils.isEmpty(sources)) return;
+
+        int order = 0;
+        for (LoggingFilterProperties.PathJsonMask src : sources) {
+            if (CollectionUtils.isEmpty(src.getMaskJson()) && CollectionUtils.isEmpty(src.getMaskKeys())) continue;
+
+            // compiled while the configuration is read, so an invalid JsonPath fails at startup
+            var rule = ruleOf.apply(rules(src.getMethod(), src.getPathPattern()));
+            rule.define(order++);
+            rule.values.addExpressions(src.getMaskJson());
+            rule.values.addKeys(src.getMaskKeys());
+        }
+    }
+
+    private void initCaptureSizeRule(@Nullable Collection<LoggingFilterProperties.PathCaptureSize> sources) {
+        if (CollectionUtils.isEmpty(sources)) return;
+
+        int order = 0;
+        for (LoggingFilterProperties.PathCaptureSize src : sources) {
+            var rules = rules(src.getMethod(), src.getPathPattern());
+            if (rules.captureSizeOrder != Integer.MAX_VALUE) continue;
+
+            rules.captureSizeOrder = order++;
+            rules.maxBodyCaptureSize = toCaptureSize(src.getMaxSize());
+        }
+    }
+
+    private static long toCaptureSize(@Nullable DataSize size) {
+        return size == null || size.isNegative() ? RoutePolicy.UNLIMITED_CAPTURE_SIZE : size.toBytes();
+    }
+
+    private RouteRules rules(HttpMethod method, String pathPattern) {
+        return routeRules.computeIfAbsent(method, pathPattern, k -> new RouteRules(jsonMaskKeys));
+    }
+
+    private static Set<String> toLowerCase(@Nullable Collection<String> keys) {
+        if (CollectionUtils.isEmpty(keys)) return Set.of();
+
+        return keys.stream().map(String::toLowerCase).collect(Collectors.toUnmodifiableSet());
+    }
+
+    private static class RouteRules {
+        private boolean ignored = false;
+        private final Rule<Set<String>> headerMaskKeys = Rule.ofKeys();
+        private final Rule<CompiledJsonMasks> requestJsonMasks;
+        private final Rule<Set<String>> requestFormMaskKeys = Rule.ofKeys();
+        private final Rule<CompiledJsonMasks> responseJsonMasks;
+        private int captureSizeOrder = Integer.MAX_VALUE;
+        private long maxBodyCaptureSize = RoutePolicy.UNLIMITED_CAPTURE_SIZE;
+
+        private RouteRules(Set<String> jsonMaskKeys) {
+            this.requestJsonMasks = Rule.ofJson(jsonMaskKeys);
+            this.responseJsonMasks = Rule.ofJson(jsonMaskKeys);
+        }
+    }
+
+    /**
+     * Values of one rule for a path pattern, and its position in the configuration.
+     */
+    private static class Rule<S extends Set<String>> {
+        private int order = Integer.MAX_VALUE;
+        private final S values;
+        private final Set<String> view;
+
+        private Rule(S values, Set<String> view) {
+            this.values = values;
+            this.view = view;
+        }
+
+        private static Rule<Set<String>> ofKeys() {
+            var values = new HashSet<String>();
+            return new Rule<>(values, Collections.unmodifiableSet(values));
+        }
+
+        private static Rule<CompiledJsonMasks> ofJson(Set<String> jsonMaskKeys) {
+            var values = new CompiledJsonMasks();
+            values.addKeys(jsonMaskKeys);
+            return new Rule<>(values, values);
+        }
+
+        private void define(int order) {
+            this.order = Math.min(this.order, order);
+        }
+
+        private boolean isDefined() {
+            return order != Integer.MAX_VALUE;
+        }
+
+        @Nullable
+        private static <S extends Set<String>> Rule<S> first(@Nullable Rule<S> current, Rule<S> candidate) {
+            if (!candidate.isDefined()) return current;
+            return current == null || candidate.order < current.order ? candidate : current;
+        }
+
+        private static Set<String> viewOf(@Nullable Rule<?> rule, Set<String> defaultValues) {
+            return rule != null ? rule.view : defaultValues;
+        }
+    }
+}
@@ -6,4 +6,8 @@ import org.springframework.http.HttpMethod;
 
 public interface HttpHeaderMask {
     HttpHeaders getMaskingHeaders(@Nonnull HttpMethod method, @Nonnull String path, @Nonnull HttpHeaders headers);
+
+    default HttpHeaders getMaskingHeaders(@Nonnull RoutePolicy policy, @Nonnull HttpHeaders headers) {
+        return getMaskingHeaders(policy.method(), policy.path(), headers);
+    }
 }
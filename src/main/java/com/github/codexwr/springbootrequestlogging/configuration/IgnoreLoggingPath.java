@@ -5,4 +5,8 @@ import org.springframework.http.HttpMethod;
 
 public interface IgnoreLoggingPath {
     boolean isMatch(@Nonnull HttpMethod method, @Nonnull String path);
+
+    default boolean isMatch(@Nonnull RoutePolicy policy) {
+        return isMatch(policy.method(), policy.path());
+    }
 }
@@ -0,0 +1,167 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import jakarta.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JsonPath expression compiled for {@link JsonTokenMask}.
+ * <p>
+ * Only the subset below is supported, with the same meaning as JsonPath:
+ * <ul>
+ *     <li>{@code $.a.b}, {@code $['a']['b']}: object property</li>
+ *     <li>{@code $.a.*}, {@code $.a[*]}: every value of an object or element of an array</li>
+ *     <li>{@code $..a}, {@code $..['a']}, {@code $..*}: deep scan of a property or of every value</li>
+ * </ul>
+ */
+final class JsonMaskPath {
+    enum Kind {PROPERTY, WILDCARD, DEEP_PROPERTY, DEEP_WILDCARD}
+
+    record Step(Kind kind, @Nullable String name) {
+        boolean isDeepScan() {
+            return kind == Kind.DEEP_PROPERTY || kind == Kind.DEEP_WILDCARD;
+        }
+
+        /**
+         * @param name property name of the value, {@code null} for an array element
+         */
+        boolean accepts(@Nullable String name) {
+            return switch (kind) {
+                case PROPERTY, DEEP_PROPERTY -> this.name.equals(name);
+                case WILDCARD, DEEP_WILDCARD -> true;
+            };
+        }
+    }
+
+    private final String path;
+    private final Step[] steps;
+
+    private JsonMaskPath(String path, Step[] steps) {
+        this.path = path;
+        this.steps = steps;
+    }
+
+    /**
+     * @return {@code null} if the expression is out of the supported subset
+     */
+    @Nullable
+    static JsonMaskPath compile(String path) {
+        if (path == null) return null;
+
+        var expression = path.trim();
+        if (!expression.startsWith("$")) {
+            // JsonPath reads 'a.b' as '$.a.b'
+            if (expression.isEmpty() || expression.startsWith(".") || expression.startsWith("[")) return null;
+            expression = "$." + expression;
+        }
+
+        var steps = new ArrayList<Step>();
+        int idx = 1;
+        while (idx < expression.length()) {
+            idx = parseStep(expression, idx, steps);
+            if (idx < 0) return null;
+        }
+        if (steps.isEmpty()) return null;
+
+        return new JsonMaskPath(path, steps.toArray(Step[]::new));
+    }
+
+    private static int parseStep(String expression, int idx, List<Step> steps) {
+        boolean deepScan = expression.startsWith("..", idx);
+        if (deepScan) {
+            idx += 2;
+        } else if (expression.charAt(idx) == '.') {
+            idx += 1;
+        } else if (expression.charAt(idx) != '[') {
+            return -1;
+        }
+        if (idx >= expression.length()) return -1;
+
+        if (expression.charAt(idx) == '[') return parseBracket(expression, idx, deepScan, steps);
+
+        if (expression.charAt(idx) == '*') {
+            steps.add(new Step(deepScan ? Kind.DEEP_WILDCARD : Kind.WILDCARD, null));
+            return idx + 1;
+        }
+
+        int end = idx;
+        while (end < expression.length() && expression.charAt(end) != '.' && expression.charAt(end) != '[') {
+            if (!isNameChar(expression.charAt(end))) return -1;
+            end++;
+        }
+        if (end == idx) return -1;
+
+        steps.add(new Step(deepScan ? Kind.DEEP_PROPERTY : Kind.PROPERTY, expression.substring(idx, end)));
+        return end;
+    }
+
+    private static int parseBracket(String expression, int idx, boolean deepScan, List<Step> steps) {
+        int pos = skipSpaces(expression, idx + 1);
+        if (pos >= expression.length()) return -1;
+
+        char quote = expression.charAt(pos);
+        if (quote == '*') {
+            pos = skipSpaces(expression, pos + 1);
+            if (pos >= expression.length() || expression.charAt(pos) != ']') return -1;
+
+            steps.add(new Step(deepScan ? Kind.DEEP_WILDCARD : Kind.WILDCARD, null));
+            return pos + 1;
+        }
+        if (quote != '\'' && quote != '"') return -1;
+
+        var name = new StringBuilder();
+        for (pos++; pos < expression.length() && expression.charAt(pos) != quote; pos++) {
+            char c = expression.charAt(pos);
+            if (c == '\\') {
+                // JsonPath unescapes quotes and backslashes of a bracket property
+                if (++pos >= expression.length()) return -1;
+                c = expression.charAt(pos);
+                if (c != '\\' && c != '\'' && c != '"') return -1;
+            }
+            name.append(c);
+        }
+        if (pos >= expression.length() || name.isEmpty()) return -1;
+
+        // more than one property(e.g. ['a','b']) is not supported
+        pos = skipSpaces(expression, pos + 1);
+        if (pos >= expression.length() || expression.charAt(pos) != ']') return -1;
+
+        steps.add(new Step(deepScan ? Kind.DEEP_PROPERTY : Kind.PROPERTY, name.toString()));
+        return pos + 1;
+    }
+
+    private static int skipSpaces(String expression, int idx) {
+        while (idx < expression.length() && expression.charAt(idx) == ' ') idx++;
+        return idx;
+    }
+
+    private static boolean isNameChar(char c) {
+        return !Character.isWhitespace(c) && "()[]'\"*?@,=<>!&|:".indexOf(c) < 0;
+    }
+
+    String path() {
+        return path;
+    }
+
+    /**
+     * @return the property name, if the path is only a deep scan of a property(e.g. {@code $..password})
+     */
+    @Nullable
+    String deepScanProperty() {
+        return steps.length == 1 && steps[0].kind == Kind.DEEP_PROPERTY ? steps[0].name : null;
+    }
+
+    int length() {
+        return steps.length;
+    }
+
+    Step step(int idx) {
+        return steps[idx];
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
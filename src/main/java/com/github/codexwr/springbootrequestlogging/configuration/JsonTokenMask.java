@@ -0,0 +1,464 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Masks a JSON document in a single pass over its token stream, without building a tree.
+ * <p>
+ * A value matched by one of the {@link JsonMaskPath} is replaced by the mask string, and its children are skipped.
+ * The output is written the way json-smart(the JsonPath default provider) writes a document,
+ * so the result is the same as {@code JsonPath.parse(json).set(path, mask).jsonString()}.
+ * Documents that json-smart reads but a strict parser does not(e.g. single quotes, duplicate keys, trailing content),
+ * are left to the caller.
+ */
+final class JsonTokenMask {
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .enable(StreamReadFeature.STRICT_DUPLICATE_DETECTION)
+            .build();
+    // json-smart reads a decimal longer than this as BigDecimal, otherwise as Double
+    private static final int MAX_DOUBLE_LENGTH = 18;
+
+    private final JsonMaskPath[] paths;
+    // properties masked at any depth, checked by a hash lookup instead of a path state
+    private final Set<String> deepScanProperties;
+
+    private JsonTokenMask(JsonMaskPath[] paths, Set<String> deepScanProperties) {
+        this.paths = paths;
+        this.deepScanProperties = deepScanProperties;
+    }
+
+    /**
+     * @return {@code null} if one of the paths is out of the supported subset of {@link JsonMaskPath}
+     */
+    @Nullable
+    static JsonTokenMask compile(Collection<String> paths) {
+        var compiled = new ArrayList<JsonMaskPath>(paths.size());
+        var deepScanProperties = new HashSet<String>();
+        for (String path : paths) {
+            var maskPath = JsonMaskPath.compile(path);
+            if (maskPath == null) return null;
+
+            var property = maskPath.deepScanProperty();
+            if (property != null) deepScanProperties.add(property);
+            else compiled.add(maskPath);
+        }
+
+        return new JsonTokenMask(compiled.toArray(JsonMaskPath[]::new), deepScanProperties);
+    }
+
+    /**
+     * @return {@code null} if the json is not an object or array that a strict parser can read
+     */
+    @Nullable
+    String mask(String json, String maskString) {
+        var output = new StringBuilder(json.length() + 16);
+        try (var parser = JSON_FACTORY.createParser(json)) {
+            return mask(parser, maskString, output, false) ? output.toString() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Appends the masked body to the output. A UTF-8 body is parsed from its bytes without decoding it first.
+     *
+     * @return {@code false} if the body is not an object or array that a strict parser can read,
+     * the output is left as it was
+     */
+    boolean mask(LogBody body, String maskString, StringBuilder output) {
+        try (var parser = createParser(JSON_FACTORY, body)) {
+            return mask(parser, maskString, output, false);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Appends the masked part of a document cut short(e.g. a truncated body), up to the last complete token.
+     * A value cut in the middle is dropped, so nothing is written that the masks did not see.
+     *
+     * @return {@code false} if the body does not start as an object or array, the output is left as it was
+     */
+    boolean maskPartial(LogBody body, String maskString, StringBuilder output) {
+        try (var parser = createParser(JSON_FACTORY, body)) {
+            return mask(parser, maskString, output, true);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param maxMaskedLength chars of masked output kept, negative if unlimited.
+     *                        The body is logged as truncated once the output reaches it.
+     * @return a mask of a UTF-8 body fed chunk by chunk
+     */
+    StreamingBodyMask newStreamingMask(String maskString, long maxMaskedLength) {
+        return new Feed(maskString, maxMaskedLength);
+    }
+
+    /**
+     * Reads a UTF-8 body from its bytes, other charsets are decoded first.
+     * A body kept out of the heap is streamed from its buffer.
+     */
+    static JsonParser createParser(JsonFactory factory, LogBody body) throws IOException {
+        if (body.hasUtf8Bytes()) {
+            var stream = body.byteBufferStream();
+            if (stream != null) return factory.createParser(stream);
+
+            return factory.createParser(body.array(), body.offset(), body.length());
+        }
+
+        return factory.createParser(body.toString());
+    }
+
+    private boolean mask(JsonParser parser, String maskString, StringBuilder output, boolean partial) {
+        int start = output.length();
+        var session = new Session(output, quote(maskString));
+        try {
+            var token = parser.nextToken();
+            if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY) return false;
+
+            while (token != null && !session.isDone()) {
+                session.onToken(token, parser);
+                if (!session.isDone()) token = parser.nextToken();
+            }
+
+            if (session.isDone() && parser.nextToken() == null) return true;
+        } catch (IOException ignore) {
+        }
+
+        // a value is only written once read, so the output ends at the last value the paths were matched against
+        if (partial && session.started) return true;
+
+        // drop what was written before the document turned out to be unreadable
+        output.setLength(start);
+        return false;
+    }
+
+    /**
+     * Masks the chunks of a body as they come, with the non-blocking parser, and keeps only the masked output.
+     * <p>
+     * The output ends at the last value the paths were matched against, as for {@link #maskPartial},
+     * so it can be logged as it is at any time. A body that turns out not to be an object or array a strict parser
+     * can read is logged as the mask string, since its bytes are not kept to be masked by JsonPath.
+     */
+    final class Feed implements StreamingBodyMask {
+        private final JsonParser parser;
+        private final ByteBufferFeeder feeder;
+        private final StringBuilder output = new StringBuilder();
+        private final Session session;
+        private final String maskString;
+        private final long maxMaskedLength;
+        private long fedLength = 0;
+        private boolean failed = false;
+        // the output reached its max length, the rest of the body is not masked
+        private boolean stopped = false;
+
+        private Feed(String maskString, long maxMaskedLength) {
+            try {
+                this.parser = JSON_FACTORY.createNonBlockingByteBufferParser();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+            this.session = new Session(output, quote(maskString));
+            this.maskString = maskString;
+            this.maxMaskedLength = maxMaskedLength;
+        }
+
+        @Override
+        public void write(@Nonnull ByteBuffer chunk) {
+            if (failed || stopped || !chunk.hasRemaining()) return;
+
+            try {
+                fedLength += chunk.remaining();
+                feeder.feedInput(chunk.duplicate());
+                feedTokens();
+            } catch (IOException e) {
+                failed = true;
+            }
+        }
+
+        // reads the tokens of the chunk until the parser needs more input, so it holds no bytes of the chunk after
+        private void feedTokens() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (session.isDone()) throw new IOException("Trailing content: " + token);
+                if (!session.started && token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY)
+                    throw new IOException("Not an object or array: " + token);
+
+                session.onToken(token, parser);
+                if (maxMaskedLength >= 0 && output.length() >= maxMaskedLength) {
+                    stopped = true;
+                    return;
+                }
+            }
+        }
+
+        @Override
+        @Nonnull
+        public LogBody toLogBody(long originalLength) {
+            if (failed || !session.started) return LogBody.ofMasked(maskString, 0);
+            if (session.isDone()) return LogBody.ofMasked(output.toString(), 0);
+
+            // an unfinished document is only logged as truncated, a complete but unreadable one is masked whole
+            if (!stopped && originalLength != LogBody.UNKNOWN_LENGTH && originalLength <= fedLength) return LogBody.ofMasked(maskString, 0);
+
+            return LogBody.ofMasked(output.toString(), originalLength);
+        }
+    }
+
+    /**
+     * Masking state of one document, fed token by token.
+     * <p>
+     * Nesting is tracked by an explicit stack and skipped values by a depth counter,
+     * so the parser is never asked to read ahead.
+     */
+    final class Session {
+        private final StringBuilder output;
+        private final String maskValue;
+        private final List<Frame> stack = new ArrayList<>();
+        private int depth = 0;
+        private int skipDepth = 0;
+        private boolean started = false;
+
+        Session(StringBuilder output, String maskValue) {
+            this.output = output;
+            this.maskValue = maskValue;
+        }
+
+        boolean isDone() {
+            return started && depth == 0 && skipDepth == 0;
+        }
+
+        void onToken(JsonToken token, JsonParser parser) throws IOException {
+            if (skipDepth > 0) {
+                if (token.isStructStart()) skipDepth++;
+                else if (token.isStructEnd()) skipDepth--;
+                return;
+            }
+
+            switch (token) {
+                case FIELD_NAME -> {
+                    var frame = stack.get(depth - 1);
+                    frame.fieldName = parser.currentName();
+                    frame.separate(output);
+                    // the name, not its text characters, which the non-blocking parser does not refresh for every name
+                    appendQuoted(output, frame.fieldName);
+                    output.append(':');
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    output.append(token == JsonToken.END_OBJECT ? '}' : ']');
+                    depth--;
+                }
+                default -> onValue(token, parser);
+            }
+        }
+
+        private void onValue(JsonToken token, JsonParser parser) throws IOException {
+            Frame child;
+            if (!started) {
+                started = true;
+                child = push();
+                for (int i = 0; i < paths.length; i++)
+                    child.add(i, 0);
+            } else {
+                var parent = stack.get(depth - 1);
+                if (!parent.object) parent.separate(output);
+
+                child = push();
+                if (matchChild(parent, child)) {
+                    depth--;
+                    output.append(maskValue);
+                    if (token.isStructStart()) skipDepth = 1;
+                    return;
+                }
+            }
+
+            if (token.isStructStart()) {
+                child.object = token == JsonToken.START_OBJECT;
+                output.append(child.object ? '{' : '[');
+                return;
+            }
+
+            depth--;
+            appendScalar(token, parser);
+        }
+
+        /**
+         * Moves the states of the parent to the child value.
+         *
+         * @return the child value is matched by a path
+         */
+        private boolean matchChild(Frame parent, Frame child) {
+            var name = parent.object ? parent.fieldName : null;
+            if (name != null && deepScanProperties.contains(name)) return true;
+
+            for (int i = 0; i < parent.size; i++) {
+                int pathIdx = parent.pathIdx[i];
+                int stepIdx = parent.stepIdx[i];
+                var path = paths[pathIdx];
+                var step = path.step(stepIdx);
+
+                if (step.isDeepScan()) child.add(pathIdx, stepIdx);
+                if (!step.accepts(name)) continue;
+
+                if (stepIdx + 1 == path.length()) return true;
+                child.add(pathIdx, stepIdx + 1);
+            }
+
+            return false;
+        }
+
+        private Frame push() {
+            if (depth == stack.size()) stack.add(new Frame());
+
+            var frame = stack.get(depth++);
+            frame.reset();
+            return frame;
+        }
+
+        private void appendScalar(JsonToken token, JsonParser parser) throws IOException {
+            switch (token) {
+                case VALUE_STRING ->
+                        appendQuoted(output, parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                case VALUE_NUMBER_INT -> appendInt(parser);
+                case VALUE_NUMBER_FLOAT -> output.append(normalizeFloat(parser.getText()));
+                case VALUE_TRUE -> output.append("true");
+                case VALUE_FALSE -> output.append("false");
+                case VALUE_NULL -> output.append("null");
+                default -> throw new IOException("Unexpected token: " + token);
+            }
+        }
+
+        private void appendInt(JsonParser parser) throws IOException {
+            var chars = parser.getTextCharacters();
+            int offset = parser.getTextOffset();
+            int length = parser.getTextLength();
+
+            // '-0' is read as the integer 0
+            if (length == 2 && chars[offset] == '-' && chars[offset + 1] == '0')
+                output.append('0');
+            else
+                output.append(chars, offset, length);
+        }
+    }
+
+    private static final class Frame {
+        private boolean object;
+        private boolean first;
+        private String fieldName;
+        // active (path, step) pairs for the values of this container
+        private int[] pathIdx = new int[4];
+        private int[] stepIdx = new int[4];
+        private int size;
+
+        private void reset() {
+            object = false;
+            first = true;
+            fieldName = null;
+            size = 0;
+        }
+
+        private void separate(StringBuilder output) {
+            if (first) first = false;
+            else output.append(',');
+        }
+
+        private void add(int path, int step) {
+            for (int i = 0; i < size; i++) {
+                if (pathIdx[i] == path && stepIdx[i] == step) return;
+            }
+
+            if (size == pathIdx.length) {
+                pathIdx = Arrays.copyOf(pathIdx, size * 2);
+                stepIdx = Arrays.copyOf(stepIdx, size * 2);
+            }
+            pathIdx[size] = path;
+            stepIdx[size] = step;
+            size++;
+        }
+    }
+
+    private static String normalizeFloat(String text) {
+        if (text.length() > MAX_DOUBLE_LENGTH) return new BigDecimal(text).toString();
+
+        double value = Double.parseDouble(text);
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value);
+    }
+
+    private static String quote(String value) {
+        var output = new StringBuilder(value.length() + 2);
+        appendQuoted(output, value);
+        return output.toString();
+    }
+
+    private static void appendQuoted(StringBuilder output, String value) {
+        output.append('"');
+
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            var escape = escape(value.charAt(i));
+            if (escape == null) continue;
+
+            output.append(value, start, i).append(escape);
+            start = i + 1;
+        }
+        output.append(value, start, value.length());
+
+        output.append('"');
+    }
+
+    private static void appendQuoted(StringBuilder output, char[] chars, int offset, int length) {
+        output.append('"');
+
+        int start = offset;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            char c = chars[i];
+            var escape = escape(c);
+            if (escape == null) continue;
+
+            output.append(chars, start, i - start).append(escape);
+            start = i + 1;
+        }
+        output.append(chars, start, end - start);
+
+        output.append('"');
+    }
+
+    // same characters as json-smart escapes by default
+    @Nullable
+    private static String escape(char c) {
+        return switch (c) {
+            case '"' -> "\\\"";
+            case '\\' -> "\\\\";
+            case '\b' -> "\\b";
+            case '\f' -> "\\f";
+            case '\n' -> "\\n";
+            case '\r' -> "\\r";
+            case '\t' -> "\\t";
+            default -> {
+                if (c <= '\u001F' || (c >= '\u007F' && c <= '\u009F') || (c >= '\u2000' && c <= '\u20FF'))
+                    yield String.format("\\u%04X", (int) c);
+                yield null;
+            }
+        };
+    }
+}
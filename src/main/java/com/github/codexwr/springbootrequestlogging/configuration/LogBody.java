@@ -0,0 +1,348 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Captured request or response body, kept as the bytes read from the wire until a mask or printer needs it.
+ * <p>
+ * The default masks parse a UTF-8 body straight from the bytes and write the result into the log message,
+ * so the body is never decoded into a {@code String} of its own. {@link #toString()} decodes it once on demand.
+ * <p>
+ * Form and multipart requests are kept as their parameters, and only formatted as JSON when they are logged.
+ * <p>
+ * A body longer than the capture limit of its route is only kept up to the limit, and {@link #isTruncated()}.
+ * Its whole length is {@link #UNKNOWN_LENGTH} if the body was not read to its end and had no content length.
+ * <p>
+ * A large body may be kept in a memory-mapped file instead of the heap({@link CaptureBuffer}), or in the received
+ * buffers themselves, the masks then read it through a stream of the mapped region or of the buffers.
+ */
+public final class LogBody {
+    /**
+     * Original length of a truncated body whose whole length is not known.
+     */
+    public static final long UNKNOWN_LENGTH = -1;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Nullable
+    private final byte[] bytes;
+    // the bytes of a body kept out of the heap, in order, each from position to limit
+    @Nullable
+    private final ByteBuffer[] buffers;
+    private final int offset;
+    private final int length;
+    // length of the whole body, longer than the kept bytes if truncated, UNKNOWN_LENGTH if truncated at an unknown length
+    private final long originalLength;
+    private final Charset charset;
+    @Nullable
+    private final Map<String, List<String>> formData;
+    @Nullable
+    private volatile String text;
+    // masked as it was captured(StreamingBodyMask), printed as it is
+    private final boolean masked;
+
+    private LogBody(@Nullable byte[] bytes, int offset, int length, long originalLength, Charset charset, @Nullable Map<String, List<String>> formData, @Nullable String text) {
+        this(bytes, null, offset, length, originalLength, charset, formData, text, false);
+    }
+
+    private LogBody(@Nullable byte[] bytes, @Nullable ByteBuffer[] buffers, int offset, int length, long originalLength, Charset charset, @Nullable Map<String, List<String>> formData, @Nullable String text) {
+        this(bytes, buffers, offset, length, originalLength, charset, formData, text, false);
+    }
+
+    private LogBody(@Nullable byte[] bytes, @Nullable ByteBuffer[] buffers, int offset, int length, long originalLength, Charset charset, @Nullable Map<String, List<String>> formData, @Nullable String text, boolean masked) {
+        this.bytes = bytes;
+        this.buffers = buffers;
+        this.offset = offset;
+        this.length = length;
+        this.originalLength = originalLength;
+        this.charset = charset;
+        this.formData = formData;
+        this.text = text;
+        this.masked = masked;
+    }
+
+    /**
+     * The bytes are not copied, and must not be modified after.
+     */
+    @Nonnull
+    public static LogBody of(@Nonnull byte[] bytes, @Nonnull Charset charset) {
+        return of(bytes, 0, bytes.length, charset);
+    }
+
+    @Nonnull
+    public static LogBody of(@Nonnull byte[] bytes, int offset, int length, @Nonnull Charset charset) {
+        Assert.notNull(bytes, "bytes must not be null");
+        Assert.notNull(charset, "charset must not be null");
+        Assert.isTrue(offset >= 0 && length >= 0 && offset + length <= bytes.length, "offset and length must be in the bytes");
+
+        return new LogBody(bytes, offset, length, length, charset, null, null);
+    }
+
+    /**
+     * @param originalLength length of the whole body, of which only the first bytes were captured, or {@link #UNKNOWN_LENGTH}
+     */
+    @Nonnull
+    public static LogBody ofTruncated(@Nonnull byte[] bytes, int offset, int length, long originalLength, @Nonnull Charset charset) {
+        Assert.notNull(bytes, "bytes must not be null");
+        Assert.notNull(charset, "charset must not be null");
+        Assert.isTrue(offset >= 0 && length >= 0 && offset + length <= bytes.length, "offset and length must be in the bytes");
+        Assert.isTrue(originalLength >= length || originalLength == UNKNOWN_LENGTH, "originalLength must not be less than length");
+
+        return new LogBody(bytes, offset, length, originalLength, charset, null, null);
+    }
+
+    /**
+     * The remaining bytes of the buffer(e.g. a memory-mapped region), not copied.
+     *
+     * @param originalLength length of the whole body, of which the buffer may only hold the first bytes, or {@link #UNKNOWN_LENGTH}
+     */
+    @Nonnull
+    public static LogBody of(@Nonnull ByteBuffer buffer, long originalLength, @Nonnull Charset charset) {
+        Assert.notNull(buffer, "buffer must not be null");
+        Assert.notNull(charset, "charset must not be null");
+        Assert.isTrue(originalLength >= buffer.remaining() || originalLength == UNKNOWN_LENGTH, "originalLength must not be less than the remaining bytes");
+
+        return new LogBody(null, new ByteBuffer[]{buffer.slice()}, 0, buffer.remaining(), originalLength, charset, null, null);
+    }
+
+    /**
+     * The remaining bytes of the buffers in order(e.g. the received buffers of a body), not copied.
+     *
+     * @param maxLength      bytes kept from the first buffers, negative to keep them all
+     * @param originalLength length of the whole body, of which the buffers may only hold the first bytes, or {@link #UNKNOWN_LENGTH}
+     */
+    @Nonnull
+    public static LogBody of(@Nonnull List<ByteBuffer> buffers, long maxLength, long originalLength, @Nonnull Charset charset) {
+        Assert.notNull(buffers, "buffers must not be null");
+        Assert.notNull(charset, "charset must not be null");
+
+        var slices = limit(buffers.toArray(ByteBuffer[]::new), maxLength);
+        long length = 0;
+        for (ByteBuffer slice : slices) length += slice.remaining();
+        Assert.isTrue(length <= Integer.MAX_VALUE, "buffers must not hold more than Integer.MAX_VALUE bytes");
+        Assert.isTrue(originalLength >= length || originalLength == UNKNOWN_LENGTH, "originalLength must not be less than the remaining bytes");
+
+        return new LogBody(null, slices, 0, (int) length, originalLength, charset, null, null);
+    }
+
+    /**
+     * @return slices of the first bytes of the buffers, up to the max length
+     */
+    private static ByteBuffer[] limit(ByteBuffer[] buffers, long maxLength) {
+        var slices = new ArrayList<ByteBuffer>(buffers.length);
+        long remaining = maxLength;
+        for (ByteBuffer buffer : buffers) {
+            if (maxLength >= 0 && remaining <= 0) break;
+
+            int length = maxLength < 0 ? buffer.remaining() : (int) Math.min(buffer.remaining(), remaining);
+            if (length > 0) slices.add(buffer.slice(buffer.position(), length));
+            remaining -= length;
+        }
+
+        return slices.toArray(ByteBuffer[]::new);
+    }
+
+    @Nonnull
+    public static LogBody of(@Nonnull String text) {
+        Assert.notNull(text, "text must not be null");
+
+        return new LogBody(null, 0, 0, 0, StandardCharsets.UTF_8, null, text);
+    }
+
+    /**
+     * A body masked while it was captured, which the masks do not see again.
+     *
+     * @param originalLength length of the whole body, of which only the first bytes were masked,
+     *                       {@code 0} if the whole body was masked, or {@link #UNKNOWN_LENGTH}
+     */
+    @Nonnull
+    public static LogBody ofMasked(@Nonnull String maskedText, long originalLength) {
+        Assert.notNull(maskedText, "maskedText must not be null");
+        Assert.isTrue(originalLength >= 0 || originalLength == UNKNOWN_LENGTH, "originalLength must not be negative");
+
+        return new LogBody(null, null, 0, 0, originalLength, StandardCharsets.UTF_8, null, maskedText, true);
+    }
+
+    @Nullable
+    public static LogBody ofNullable(@Nullable String text) {
+        return text != null ? of(text) : null;
+    }
+
+    /**
+     * @param formData parameters of a form or multipart request, not copied
+     */
+    @Nonnull
+    public static LogBody ofFormData(@Nonnull Map<String, List<String>> formData) {
+        Assert.notNull(formData, "formData must not be null");
+
+        return new LogBody(null, 0, 0, 0, StandardCharsets.UTF_8, formData, null);
+    }
+
+    /**
+     * A view of the first bytes of the body, without copying them.
+     *
+     * @param maxLength negative to keep the whole body
+     * @return this body if it is not longer than the max length, or is not kept as bytes
+     */
+    @Nonnull
+    public LogBody limit(long maxLength) {
+        if (!hasBytes() || maxLength < 0 || length <= maxLength) return this;
+
+        var limited = buffers != null ? limit(buffers, maxLength) : null;
+        return new LogBody(bytes, limited, offset, (int) maxLength, originalLength, charset, null, null);
+    }
+
+    /**
+     * @return only the first bytes of the body were captured
+     */
+    public boolean isTruncated() {
+        return originalLength > length || originalLength == UNKNOWN_LENGTH;
+    }
+
+    /**
+     * @return length of the whole body in bytes, 0 if the body is not kept as bytes,
+     * {@link #UNKNOWN_LENGTH} if it is truncated at an unknown length
+     */
+    public long getOriginalLength() {
+        return originalLength;
+    }
+
+    /**
+     * @return the body is already masked, and is printed as it is
+     */
+    public boolean isMasked() {
+        return masked;
+    }
+
+    /**
+     * @return the parameters, if the body is of a form or multipart request
+     */
+    @Nullable
+    public Map<String, List<String>> getFormData() {
+        return formData;
+    }
+
+    @Nonnull
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * @return {@code false} if the body is empty or only whitespace
+     */
+    public boolean hasText() {
+        if (formData != null) return true;
+        if (!hasBytes() || !isAsciiCompatible()) return StringUtils.hasText(toString());
+
+        // whitespace is a single byte below 0x80 in an ascii compatible charset
+        if (bytes != null) return hasText(ByteBuffer.wrap(bytes, offset, length));
+        for (ByteBuffer buffer : buffers) {
+            if (hasText(buffer)) return true;
+        }
+        return false;
+    }
+
+    private static boolean hasText(ByteBuffer buffer) {
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            byte b = buffer.get(i);
+            if (b < 0 || !Character.isWhitespace(b)) return true;
+        }
+        return false;
+    }
+
+    private boolean hasBytes() {
+        return bytes != null || buffers != null;
+    }
+
+    /**
+     * @return the bytes can be read by a UTF-8 parser as they are
+     */
+    boolean hasUtf8Bytes() {
+        return hasBytes() && (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @return a stream of the bytes of a body kept out of the heap, {@code null} if it is not
+     */
+    @Nullable
+    InputStream byteBufferStream() {
+        if (buffers == null) return null;
+        if (buffers.length == 1) return new ByteBufferBackedInputStream(buffers[0].duplicate());
+
+        var streams = new ArrayList<InputStream>(buffers.length);
+        for (ByteBuffer buffer : buffers) streams.add(new ByteBufferBackedInputStream(buffer.duplicate()));
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    private boolean isAsciiCompatible() {
+        return hasUtf8Bytes() || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    @Nullable
+    byte[] array() {
+        return bytes;
+    }
+
+    int offset() {
+        return offset;
+    }
+
+    int length() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        var decoded = text;
+        if (decoded == null) {
+            decoded = formData != null ? formatFormData(formData) : decode();
+            text = decoded;
+        }
+
+        return decoded;
+    }
+
+    private String decode() {
+        if (buffers != null && buffers.length == 1) return charset.decode(buffers[0].duplicate()).toString();
+        if (buffers != null) return decodeBuffers();
+
+        return new String(bytes, offset, length, charset);
+    }
+
+    /**
+     * A character may be split across two buffers, so they are decoded as one stream.
+     */
+    private String decodeBuffers() {
+        try (var stream = byteBufferStream()) {
+            return new String(stream.readAllBytes(), charset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String formatFormData(Map<String, List<String>> formData) {
+        try {
+            return objectMapper.writeValueAsString(formData);
+        } catch (JsonProcessingException e) {
+            return formData.toString();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the prints of the reactive filter, so the masking, formatting and appenders of a log line can be kept off
+ * the event loop of the server.
+ * <ul>
+ *     <li>INLINE: on the thread handing the print over</li>
+ *     <li>SCHEDULER: on a fixed pool of dedicated threads, behind a bounded queue</li>
+ *     <li>QUEUE: handed over by a lock-free queue to one dedicated thread, which prints in the order of the handover</li>
+ * </ul>
+ * A print that does not fit in the queue is dropped, never waited for. The queue size and drop count can be used
+ * to size it.
+ */
+public final class LogExecutor implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(LogExecutor.class);
+    private static final LogExecutor INLINE = new LogExecutor(LoggingFilterProperties.LogExecutionMode.INLINE, 1, 1);
+    private static final String THREAD_NAME_PREFIX = "request-logging-";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final LoggingFilterProperties.LogExecutionMode mode;
+    private final int queueCapacity;
+    @Nullable
+    private final ThreadPoolExecutor scheduler;
+    @Nullable
+    private final HandoffQueue handoffQueue;
+    private final LongAdder executedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+
+    /**
+     * @param threads       threads of the SCHEDULER mode
+     * @param queueCapacity prints waiting for a thread, a print over it is dropped
+     */
+    public LogExecutor(@Nonnull LoggingFilterProperties.LogExecutionMode mode, int threads, int queueCapacity) {
+        Assert.notNull(mode, "mode must not be null");
+        Assert.isTrue(threads > 0, "threads must be positive");
+        Assert.isTrue(queueCapacity > 0, "queueCapacity must be positive");
+
+        this.mode = mode;
+        this.queueCapacity = queueCapacity;
+        this.scheduler = mode == LoggingFilterProperties.LogExecutionMode.SCHEDULER
+                ? new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), daemonThreads(), new ThreadPoolExecutor.AbortPolicy())
+                : null;
+        this.handoffQueue = mode == LoggingFilterProperties.LogExecutionMode.QUEUE ? new HandoffQueue() : null;
+    }
+
+    /**
+     * Runs the prints on the calling thread.
+     */
+    public static LogExecutor inline() {
+        return INLINE;
+    }
+
+    /**
+     * A print failing on a thread of its own is logged, on the calling thread it is thrown to the caller.
+     *
+     * @return {@code false} if the print is dropped, the queue being full or the executor closed
+     */
+    public boolean execute(@Nonnull Runnable print) {
+        Assert.notNull(print, "print must not be null");
+
+        if (scheduler != null) {
+            try {
+                scheduler.execute(() -> run(print));
+                return true;
+            } catch (RejectedExecutionException e) {
+                droppedCount.increment();
+                return false;
+            }
+        }
+        if (handoffQueue != null) {
+            if (handoffQueue.offer(print)) return true;
+
+            droppedCount.increment();
+            return false;
+        }
+
+        print.run();
+        executedCount.increment();
+        return true;
+    }
+
+    private void run(Runnable print) {
+        try {
+            print.run();
+        } catch (Throwable e) {
+            log.warn("Failed to print a request log.", e);
+        } finally {
+            executedCount.increment();
+        }
+    }
+
+    public LoggingFilterProperties.LogExecutionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return {@code true} if the prints run in the order they are handed over, on one thread at a time
+     */
+    public boolean isOrdered() {
+        return scheduler == null || scheduler.getMaximumPoolSize() == 1;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return prints waiting for a thread
+     */
+    public int getQueueSize() {
+        if (scheduler != null) return scheduler.getQueue().size();
+        if (handoffQueue != null) return handoffQueue.size.get();
+
+        return 0;
+    }
+
+    public long getExecutedCount() {
+        return executedCount.sum();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Prints what is already handed over, for a while, and stops the threads.
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                if (!scheduler.awaitTermination(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) scheduler.shutdownNow();
+            } catch (InterruptedException e) {
+                scheduler.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (handoffQueue != null) handoffQueue.close();
+    }
+
+    private static ThreadFactory daemonThreads() {
+        var count = new AtomicInteger();
+        return runnable -> {
+            var thread = new Thread(runnable, THREAD_NAME_PREFIX + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Many producers offer without a lock, one thread takes the prints in order and parks while there is none.
+     * A producer only unparks the thread when it is idle, so a busy queue costs a CAS per print.
+     */
+    private final class HandoffQueue implements Runnable {
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        // bounds the queue, whose own size is not constant time
+        private final AtomicInteger size = new AtomicInteger();
+        private final Thread consumer;
+        private volatile boolean idle = false;
+        private volatile boolean closed = false;
+
+        private HandoffQueue() {
+            consumer = daemonThreads().newThread(this);
+            consumer.start();
+        }
+
+        private boolean offer(Runnable print) {
+            if (closed) return false;
+            if (size.incrementAndGet() > queueCapacity) {
+                size.decrementAndGet();
+                return false;
+            }
+
+            queue.offer(print);
+            if (idle) LockSupport.unpark(consumer);
+            return true;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                var print = queue.poll();
+                if (print != null) {
+                    size.decrementAndGet();
+                    LogExecutor.this.run(print);
+                    continue;
+                }
+                if (closed) return;
+
+                idle = true;
+                // an offer made before the flag was set is seen here, a later one unparks
+                if (queue.isEmpty() && !closed) LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                idle = false;
+            }
+        }
+
+        private void close() {
+            closed = true;
+            LockSupport.unpark(consumer);
+            try {
+                consumer.join(CLOSE_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
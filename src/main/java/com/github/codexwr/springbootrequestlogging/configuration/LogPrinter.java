@@ -14,18 +14,82 @@ public interface LogPrinter {
     @Nullable
     UsernameProvider usernameProvider();
 
+    /**
+     * Checked by the filters before a request is captured, so a disabled printer(e.g. its logger turned off at runtime)
+     * costs close to nothing.
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * @return the printer reads the item, the filters only gather it(e.g. copy the headers, look up the session) if it does
+     */
+    default boolean includes(@Nonnull LoggingFilterProperties.DefaultLogItemType itemType) {
+        return true;
+    }
+
+    /**
+     * A mask fed with the chunks of the request or response body as they pass, for the filters which see the body
+     * in chunks(reactive). The body it returns is printed as it is.
+     *
+     * @param itemType        {@code REQUEST_BODY} or {@code RESPONSE_BODY}
+     * @param maxMaskedLength chars of masked output kept, negative if unlimited
+     * @return {@code null} if the body is to be captured and masked when printed
+     */
+    @Nullable
+    default StreamingBodyMask newStreamingMask(@Nonnull RoutePolicy policy, @Nonnull LoggingFilterProperties.DefaultLogItemType itemType, @Nonnull MediaType contentType, long maxMaskedLength) {
+        return null;
+    }
+
     void request(@Nonnull LogItem logItem);
 
     void response(@Nullable Long executionTime, @Nonnull HttpStatusCode httpStatus, @Nonnull LogItem logItem);
 
+    /**
+     * {@link #requestBody()} and {@link #responseBody()} are kept as the decoded bodies for the printers written
+     * against them, a printer reading the captured bytes takes {@link #requestLogBody()} and {@link #responseLogBody()}.
+     *
+     * @param requestLogBody  captured request body, masked by the printer
+     * @param responseLogBody captured response body, masked by the printer
+     * @param routePolicy     resolved by the filter for this request
+     * @param attributes      shared by the log items of one request, so a printer can reuse its work on the request
+     *                        (e.g. the masked request body) between the request and response lines
+     */
     record LogItem(@Nonnull HttpMethod httpMethod, @Nonnull String url, @Nullable String queryString,
                    @Nullable String remoteAddr, @Nullable String sessionId, @Nullable HttpHeaders header,
-                   @Nullable MediaType requestBodyContentType, @Nullable String requestBody,
-                   @Nullable MediaType responseBodyContentType, @Nullable String responseBody,
-                   @Nullable Map<String, String> extraInfo) {
+                   @Nullable MediaType requestBodyContentType, @Nullable LogBody requestLogBody,
+                   @Nullable MediaType responseBodyContentType, @Nullable LogBody responseLogBody,
+                   @Nullable Map<String, String> extraInfo, @Nullable RoutePolicy routePolicy,
+                   @Nullable Map<String, Object> attributes) {
         public LogItem {
             Assert.notNull(httpMethod, "httpMethod must not be null");
             Assert.notNull(url, "url must not be null");
         }
+
+        public LogItem(@Nonnull HttpMethod httpMethod, @Nonnull String url, @Nullable String queryString,
+                       @Nullable String remoteAddr, @Nullable String sessionId, @Nullable HttpHeaders header,
+                       @Nullable MediaType requestBodyContentType, @Nullable String requestBody,
+                       @Nullable MediaType responseBodyContentType, @Nullable String responseBody,
+                       @Nullable Map<String, String> extraInfo) {
+            this(httpMethod, url, queryString, remoteAddr, sessionId, header, requestBodyContentType, LogBody.ofNullable(requestBody),
+                    responseBodyContentType, LogBody.ofNullable(responseBody), extraInfo, null, null);
+        }
+
+        /**
+         * @return the captured request body, decoded once on demand, not yet masked by the printer
+         */
+        @Nullable
+        public String requestBody() {
+            return requestLogBody != null ? requestLogBody.toString() : null;
+        }
+
+        /**
+         * @return the captured response body, decoded once on demand, not yet masked by the printer
+         */
+        @Nullable
+        public String responseBody() {
+            return responseLogBody != null ? responseLogBody.toString() : null;
+        }
     }
 }
@@ -16,6 +16,27 @@ class LoggingFilterAutoConfiguration {
         return new DefaultUsernameProvider();
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    CaptureBufferPool captureBufferPool(LoggingFilterProperties properties) {
+        var pool = properties.getCaptureBufferPool();
+        return new CaptureBufferPool((int) pool.getMaxBufferSize().toBytes(), pool.isEnabled() ? pool.getMaxRetainedSize().toBytes() : 0,
+                pool.getSpillThreshold().toBytes(), pool.getSpillDirectory());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    LogExecutor logExecutor(LoggingFilterProperties properties) {
+        var execution = properties.getLogExecution();
+        return new LogExecutor(execution.getMode(), execution.getThreads(), execution.getQueueCapacity());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    RoutePolicyResolver routePolicyResolver(LoggingFilterProperties properties) {
+        return new DefaultRoutePolicyResolver(properties);
+    }
+
     @Bean
     @ConditionalOnMissingBean
     IgnoreLoggingPath ignoreLoggingPath(LoggingFilterProperties properties) {
@@ -24,25 +45,26 @@ class LoggingFilterAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    HttpHeaderMask httpHeaderMask(LoggingFilterProperties properties) {
-        return new DefaultHttpHeaderMask(properties.getMaskString(), properties.getDefaultHeaderMasks(), properties.getPathHeaderMask());
+    HttpHeaderMask httpHeaderMask(LoggingFilterProperties properties, RoutePolicyResolver routePolicyResolver) {
+        return new DefaultHttpHeaderMask(properties.getMaskString(), routePolicyResolver);
     }
 
     @Bean
     @ConditionalOnMissingBean
-    RequestBodyMask requestBodyMask(LoggingFilterProperties properties) {
-        return new DefaultRequestBodyMask(properties.getMaskString(), properties.getRequestJsonBodyMasks(), properties.getRequestFormDataMasks());
+    RequestBodyMask requestBodyMask(LoggingFilterProperties properties, RoutePolicyResolver routePolicyResolver) {
+        return new DefaultRequestBodyMask(properties.getMaskString(), routePolicyResolver, properties.getUnmaskedJsonBodyMode());
     }
 
     @Bean
     @ConditionalOnMissingBean
-    ResponseBodyMask responseBodyMask(LoggingFilterProperties properties) {
-        return new DefaultResponseBodyMask(properties.getMaskString(), properties.getResponseJsonBodyMasks());
+    ResponseBodyMask responseBodyMask(LoggingFilterProperties properties, RoutePolicyResolver routePolicyResolver) {
+        return new DefaultResponseBodyMask(properties.getMaskString(), routePolicyResolver);
     }
 
     @Bean
     @ConditionalOnMissingBean
-    LogPrinter logPrinter(LoggingFilterProperties properties, HttpHeaderMask httpHeaderMask, RequestBodyMask requestBodyMask, ResponseBodyMask responseBodyMask, UsernameProvider usernameProvider) {
-        return new DefaultLogPrinter(properties, httpHeaderMask, requestBodyMask, responseBodyMask, usernameProvider);
+    LogPrinter logPrinter(LoggingFilterProperties properties, HttpHeaderMask httpHeaderMask, RequestBodyMask requestBodyMask, ResponseBodyMask responseBodyMask, UsernameProvider usernameProvider, RoutePolicyResolver routePolicyResolver) {
+        return new DefaultLogPrinter(properties, httpHeaderMask, requestBodyMask, responseBodyMask, usernameProvider, routePolicyResolver,
+                ValueRedactor.of(properties.getMaskString(), properties.getValueRedaction()));
     }
 }
@@ -5,7 +5,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.http.HttpMethod;
+import org.springframework.util.unit.DataSize;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Set;
 
@@ -93,6 +95,32 @@ public class LoggingFilterProperties {
      */
     private boolean includeRequestBody = false;
 
+    /**
+     * How a JSON request body without mask rules is logged.
+     * <ul>
+     *     <li>COMPACT: whitespace is removed by a streaming copy of the body</li>
+     *     <li>RAW: the body is logged as received</li>
+     * </ul>
+     */
+    private UnmaskedJsonBodyMode unmaskedJsonBodyMode = UnmaskedJsonBodyMode.COMPACT;
+
+    /**
+     * When a JSON request body is captured on reactive.
+     * <ul>
+     *     <li>ON_READ: the body is copied while the handler reads it, and the handler is subscribed right away.
+     *     The enter line is logged once the body is read, or right before the exit line at the latest</li>
+     *     <li>READ_AHEAD: the whole body is received before the handler, so the enter line is logged first</li>
+     * </ul>
+     */
+    private RequestBodyCaptureMode reactiveRequestBodyCapture = RequestBodyCaptureMode.ON_READ;
+
+    /**
+     * Maximum size of a request body received before the handler(READ_AHEAD), kept as the received buffers.
+     * Past it, the handler reads the rest of the body as it is received, and the body is logged as truncated.
+     * Set a negative size to receive the whole body.
+     */
+    private DataSize reactiveReadAheadMaxSize = DataSize.ofMegabytes(1);
+
     /**
      * If the value of the JSON body of the requested URL matches the pattern, masking is applied.
      * <p>
@@ -105,6 +133,8 @@ public class LoggingFilterProperties {
      *     &nbsp;&nbsp;&nbsp;&nbsp;mask-json:<br/>
      *     &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;- '$.password'<br/>
      *     &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;- '$.password.&#42;'<br/>
+     *     &nbsp;&nbsp;&nbsp;&nbsp;mask-keys:<br/>
+     *     &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;- ssn<br/>
      *     &nbsp;&nbsp;- method: get<br/>
      *     &nbsp;&nbsp;&nbsp;&nbsp;path-pattern: '/api/auth/sign-in'<br/>
      *     &nbsp;&nbsp;&nbsp;&nbsp;mask-json:<br/>
@@ -115,6 +145,21 @@ public class LoggingFilterProperties {
     @Nullable
     private List<PathJsonMask> requestJsonBodyMasks = null;
 
+    /**
+     * Field names of the JSON body masked at any depth, for the request and response of every Url.
+     * <p>
+     * A 'request-json-body-masks' or 'response-json-body-masks' entry can add more with 'mask-keys'.
+     * <pre>
+     * <code>
+     *     json-mask-keys:<br/>
+     *     &nbsp;&nbsp;- password<br/>
+     *     &nbsp;&nbsp;- cardNumber
+     * </code>
+     * </pre>
+     */
+    @Nullable
+    private Set<String> jsonMaskKeys = null;
+
     /**
      * Masks the value corresponding to the name of specified Url.
      * <pre>
@@ -144,6 +189,43 @@ public class LoggingFilterProperties {
     @Nullable
     private List<PathJsonMask> responseJsonBodyMasks = null;
 
+    /**
+     * Maximum size of a request or response body kept for the log.
+     * The body is still read and written in full, only the logged copy stops at this size and is marked as truncated.
+     * Set a negative size to keep the whole body.
+     */
+    private DataSize maxBodyCaptureSize = DataSize.ofMegabytes(1);
+
+    /**
+     * Overrides 'max-body-capture-size' for the matching Url. The first matching entry is applied.
+     * <pre>
+     * <code>
+     *     path-body-capture-sizes:<br/>
+     *     &nbsp;&nbsp;- method: get<br/>
+     *     &nbsp;&nbsp;&nbsp;&nbsp;path-pattern: '/api/reports/&#42;&#42;'<br/>
+     *     &nbsp;&nbsp;&nbsp;&nbsp;max-size: 4KB
+     * </code>
+     * </pre>
+     */
+    @Nullable
+    private List<PathCaptureSize> pathBodyCaptureSizes = null;
+
+    /**
+     * Pool of the buffers capturing request and response bodies, shared by the requests.
+     */
+    private BufferPool captureBufferPool = new BufferPool();
+
+    /**
+     * Redacts secrets found by their value(tokens, card numbers, emails) in the logged request and response bodies,
+     * whatever key or text they are in.
+     */
+    private ValueRedaction valueRedaction = new ValueRedaction();
+
+    /**
+     * Where the reactive filter masks, formats and prints the log lines.
+     */
+    private LogExecution logExecution = new LogExecution();
+
     /**
      * Text output by masking
      */
@@ -214,11 +296,20 @@ public class LoggingFilterProperties {
         private HttpMethod method = HttpMethod.valueOf("NONE");
         private String pathPattern = "";
         private Set<String> maskJson = Set.of();
+        /**
+         * Field names masked at any depth of the JSON body
+         */
+        private Set<String> maskKeys = Set.of();
 
         public PathJsonMask(String method, String pathPattern, Set<String> maskJson) {
+            this(method, pathPattern, maskJson, Set.of());
+        }
+
+        public PathJsonMask(String method, String pathPattern, Set<String> maskJson, Set<String> maskKeys) {
             setMethod(method);
             this.pathPattern = pathPattern;
             this.maskJson = maskJson;
+            this.maskKeys = maskKeys;
         }
 
         public void setMethod(String method) {
@@ -244,6 +335,96 @@ public class LoggingFilterProperties {
         }
     }
 
+    @Data
+    @NoArgsConstructor
+    public static class PathCaptureSize {
+        private HttpMethod method = HttpMethod.valueOf("NONE");
+        private String pathPattern = "";
+        private DataSize maxSize = DataSize.ofBytes(-1);
+
+        public PathCaptureSize(String method, String pathPattern, DataSize maxSize) {
+            setMethod(method);
+            this.pathPattern = pathPattern;
+            this.maxSize = maxSize;
+        }
+
+        public void setMethod(String method) {
+            this.method = HttpMethod.valueOf(method.toUpperCase());
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class BufferPool {
+        private boolean enabled = true;
+        /**
+         * Largest buffer kept in the pool, larger buffers are allocated for the request only
+         */
+        private DataSize maxBufferSize = DataSize.ofMegabytes(1);
+        /**
+         * Total size of the buffers kept in the pool
+         */
+        private DataSize maxRetainedSize = DataSize.ofMegabytes(16);
+        /**
+         * A captured body growing past this size moves to a memory-mapped temp file, negative never moves it
+         */
+        private DataSize spillThreshold = DataSize.ofMegabytes(1);
+        /**
+         * Directory of the temp files, the default temp directory if not set
+         */
+        @Nullable
+        private Path spillDirectory;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class LogExecution {
+        /**
+         * <ul>
+         *     <li>INLINE: on the thread of the exchange(an event loop of the server)</li>
+         *     <li>SCHEDULER: on a fixed pool of dedicated threads</li>
+         *     <li>QUEUE: handed over by a lock-free queue to one dedicated thread</li>
+         * </ul>
+         */
+        private LogExecutionMode mode = LogExecutionMode.INLINE;
+        /**
+         * Threads of the SCHEDULER mode
+         */
+        private int threads = 1;
+        /**
+         * Lines waiting to be printed, a line over it is dropped
+         */
+        private int queueCapacity = 8192;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class ValueRedaction {
+        private boolean enabled = false;
+        /**
+         * The token following one of the prefixes is redacted. Prefixes are ASCII, and matched ignoring case.
+         * A prefix ending with a separator(e.g. 'Bearer ') is kept in the log.
+         */
+        private List<String> tokenPrefixes = List.of("Bearer ", "eyJ", "sk_");
+        /**
+         * Redacts card numbers that pass the Luhn check
+         */
+        private boolean cardNumbers = true;
+        private boolean emails = true;
+    }
+
+    public enum UnmaskedJsonBodyMode {
+        COMPACT, RAW
+    }
+
+    public enum RequestBodyCaptureMode {
+        ON_READ, READ_AHEAD
+    }
+
+    public enum LogExecutionMode {
+        INLINE, SCHEDULER, QUEUE
+    }
+
     public enum DefaultLogItemType {
         URL, HEADER, CLIENT_INFO, USERNAME, REQUEST_BODY, RESPONSE_BODY, EXTRA_INFO
     }
@@ -1,9 +1,33 @@
 package com.github.codexwr.springbootrequestlogging.configuration;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 
 public interface RequestBodyMask {
     String getMaskBody(@Nonnull HttpMethod method, @Nonnull String path, @Nonnull MediaType contentType, @Nonnull String requestBody);
+
+    default String getMaskBody(@Nonnull RoutePolicy policy, @Nonnull MediaType contentType, @Nonnull String requestBody) {
+        return getMaskBody(policy.method(), policy.path(), contentType, requestBody);
+    }
+
+    /**
+     * Appends the masked body to the log message.
+     * Implementations can read the captured bytes directly instead of decoding them into a {@code String} first.
+     */
+    default void appendMaskBody(@Nonnull RoutePolicy policy, @Nonnull MediaType contentType, @Nonnull LogBody requestBody, @Nonnull StringBuilder output) {
+        output.append(getMaskBody(policy, contentType, requestBody.toString()));
+    }
+
+    /**
+     * A mask fed with the chunks of a JSON body as they are read, so the body is not captured to be masked when printed.
+     *
+     * @param maxMaskedLength chars of masked output kept, negative if unlimited
+     * @return {@code null} if the body is to be captured and passed to {@link #appendMaskBody}
+     */
+    @Nullable
+    default StreamingBodyMask newStreamingMask(@Nonnull RoutePolicy policy, @Nonnull MediaType contentType, long maxMaskedLength) {
+        return null;
+    }
 }
@@ -0,0 +1,268 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Index of 'AntPathMatcher' style patterns, compiled once and keyed by {@link HttpMethod}.
+ * <p>
+ * Patterns are stored in a trie of their leading literal segments, so a lookup only tests the patterns
+ * sharing the literal prefix of the path instead of every registered pattern.
+ * When several patterns match, the one registered first wins.
+ */
+final class RoutePatternIndex<T> {
+    private static final String PATH_SEPARATOR = "/";
+
+    private final Map<HttpMethod, Node<T>> roots = new HashMap<>();
+    // <method, <path pattern, entry>>
+    private final Map<HttpMethod, Map<String, Entry<T>>> entries = new HashMap<>();
+    private int sequence = 0;
+
+    public T computeIfAbsent(@Nonnull HttpMethod method, @Nonnull String pattern, @Nonnull Function<String, T> mappingFunction) {
+        Assert.notNull(method, "method must not be null");
+        Assert.notNull(pattern, "pattern must not be null");
+
+        var entry = entries.computeIfAbsent(method, k -> new HashMap<>()).get(pattern);
+        if (entry != null) return entry.value;
+
+        entry = new Entry<>(sequence++, new CompiledPattern(pattern), mappingFunction.apply(pattern));
+        entries.get(method).put(pattern, entry);
+
+        var node = roots.computeIfAbsent(method, k -> new Node<>());
+        for (String literal : entry.pattern.literalPrefix())
+            node = node.children.computeIfAbsent(literal, k -> new Node<>());
+        node.entries.add(entry);
+
+        return entry.value;
+    }
+
+    @Nullable
+    public T getFirstMatch(@Nonnull HttpMethod method, @Nonnull String path) {
+        var root = roots.get(method);
+        if (root == null) return null;
+
+        var pathDirs = tokenize(path);
+        Entry<T> first = null;
+        var node = root;
+        for (int depth = 0; node != null; depth++) {
+            for (Entry<T> entry : node.entries) {
+                if (first != null && first.order < entry.order) break;
+                if (entry.pattern.matches(path, pathDirs)) {
+                    first = entry;
+                    break;
+                }
+            }
+            node = depth < pathDirs.length ? node.children.get(pathDirs[depth]) : null;
+        }
+
+        return first != null ? first.value : null;
+    }
+
+    public boolean matches(@Nonnull HttpMethod method, @Nonnull String path) {
+        return getFirstMatch(method, path) != null;
+    }
+
+    /**
+     * All values whose pattern matches the path, in registration order.
+     */
+    public List<T> getMatches(@Nonnull HttpMethod method, @Nonnull String path) {
+        var root = roots.get(method);
+        if (root == null) return List.of();
+
+        var pathDirs = tokenize(path);
+        var matches = new ArrayList<Entry<T>>();
+        var node = root;
+        for (int depth = 0; node != null; depth++) {
+            for (Entry<T> entry : node.entries) {
+                if (entry.pattern.matches(path, pathDirs)) matches.add(entry);
+            }
+            node = depth < pathDirs.length ? node.children.get(pathDirs[depth]) : null;
+        }
+
+        if (matches.isEmpty()) return List.of();
+        if (matches.size() == 1) return List.of(matches.get(0).value);
+
+        matches.sort(Comparator.comparingInt(Entry::order));
+        var values = new ArrayList<T>(matches.size());
+        for (Entry<T> entry : matches) values.add(entry.value);
+        return values;
+    }
+
+    private static String[] tokenize(String path) {
+        return StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, false, true);
+    }
+
+    private static class Node<T> {
+        private final Map<String, Node<T>> children = new HashMap<>();
+        // sorted by registration order, because entries are only ever appended
+        private final List<Entry<T>> entries = new ArrayList<>(1);
+    }
+
+    private record Entry<T>(int order, CompiledPattern pattern, T value) {
+    }
+
+    /**
+     * Same matching rules as {@code AntPathMatcher#match(String, String)}, with the pattern tokenized
+     * and every wildcard segment compiled ahead of time.
+     */
+    private static final class CompiledPattern {
+        private static final Pattern GLOB_PATTERN = Pattern.compile("\\?|\\*|\\{((?:\\{[^/]+?\\}|[^/{}]|\\\\[{}])+?)\\}");
+        private static final String DEFAULT_VARIABLE_PATTERN = "((?s).*)";
+        private static final String DOUBLE_WILDCARD = "**";
+
+        private final String[] pattDirs;
+        private final Pattern[] matchers;
+        private final boolean absolute;
+        private final boolean trailingSeparator;
+
+        CompiledPattern(String pattern) {
+            this.pattDirs = tokenize(pattern);
+            this.matchers = new Pattern[pattDirs.length];
+            for (int i = 0; i < pattDirs.length; i++)
+                matchers[i] = compileSegment(pattDirs[i]);
+            this.absolute = pattern.startsWith(PATH_SEPARATOR);
+            this.trailingSeparator = pattern.endsWith(PATH_SEPARATOR);
+        }
+
+        List<String> literalPrefix() {
+            var literals = new ArrayList<String>();
+            for (int i = 0; i < pattDirs.length && isLiteral(i); i++)
+                literals.add(pattDirs[i]);
+
+            return literals;
+        }
+
+        private boolean isLiteral(int idx) {
+            return matchers[idx] == null && !DOUBLE_WILDCARD.equals(pattDirs[idx]);
+        }
+
+        boolean matches(String path, String[] pathDirs) {
+            if (path.startsWith(PATH_SEPARATOR) != absolute) return false;
+
+            int pattIdxStart = 0;
+            int pattIdxEnd = pattDirs.length - 1;
+            int pathIdxStart = 0;
+            int pathIdxEnd = pathDirs.length - 1;
+
+            // Match all elements up to the first **
+            while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+                if (DOUBLE_WILDCARD.equals(pattDirs[pattIdxStart])) break;
+                if (!matchSegment(pattIdxStart, pathDirs[pathIdxStart])) return false;
+                pattIdxStart++;
+                pathIdxStart++;
+            }
+
+            if (pathIdxStart > pathIdxEnd) {
+                // Path is exhausted, only match if rest of pattern is * or **'s
+                if (pattIdxStart > pattIdxEnd) return trailingSeparator == path.endsWith(PATH_SEPARATOR);
+                if (pattIdxStart == pattIdxEnd && pattDirs[pattIdxStart].equals("*") && path.endsWith(PATH_SEPARATOR))
+                    return true;
+
+                return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+            } else if (pattIdxStart > pattIdxEnd) {
+                // String not exhausted, but pattern is
+                return false;
+            }
+
+            // up to last '**'
+            while (pattIdxStart <= pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+                if (DOUBLE_WILDCARD.equals(pattDirs[pattIdxEnd])) break;
+                if (!matchSegment(pattIdxEnd, pathDirs[pathIdxEnd])) return false;
+                if (pattIdxEnd == pattDirs.length - 1 && trailingSeparator != path.endsWith(PATH_SEPARATOR))
+                    return false;
+                pattIdxEnd--;
+                pathIdxEnd--;
+            }
+            if (pathIdxStart > pathIdxEnd) return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+
+            while (pattIdxStart != pattIdxEnd && pathIdxStart <= pathIdxEnd) {
+                int patIdxTmp = -1;
+                for (int i = pattIdxStart + 1; i <= pattIdxEnd; i++) {
+                    if (DOUBLE_WILDCARD.equals(pattDirs[i])) {
+                        patIdxTmp = i;
+                        break;
+                    }
+                }
+                if (patIdxTmp == pattIdxStart + 1) {
+                    // '**/**' situation, so skip one
+                    pattIdxStart++;
+                    continue;
+                }
+
+                // Find the pattern between pattIdxStart & patIdxTmp in path between pathIdxStart & pathIdxEnd
+                int patLength = patIdxTmp - pattIdxStart - 1;
+                int strLength = pathIdxEnd - pathIdxStart + 1;
+                int foundIdx = -1;
+
+                strLoop:
+                for (int i = 0; i <= strLength - patLength; i++) {
+                    for (int j = 0; j < patLength; j++) {
+                        if (!matchSegment(pattIdxStart + j + 1, pathDirs[pathIdxStart + i + j])) continue strLoop;
+                    }
+                    foundIdx = pathIdxStart + i;
+                    break;
+                }
+
+                if (foundIdx == -1) return false;
+
+                pattIdxStart = patIdxTmp;
+                pathIdxStart = foundIdx + patLength;
+            }
+
+            return onlyDoubleWildcards(pattIdxStart, pattIdxEnd);
+        }
+
+        private boolean onlyDoubleWildcards(int from, int to) {
+            for (int i = from; i <= to; i++) {
+                if (!DOUBLE_WILDCARD.equals(pattDirs[i])) return false;
+            }
+            return true;
+        }
+
+        private boolean matchSegment(int pattIdx, String pathDir) {
+            var matcher = matchers[pattIdx];
+            return matcher == null ? pattDirs[pattIdx].equals(pathDir) : matcher.matcher(pathDir).matches();
+        }
+
+        @Nullable
+        private static Pattern compileSegment(String segment) {
+            var regex = new StringBuilder();
+            Matcher matcher = GLOB_PATTERN.matcher(segment);
+            int end = 0;
+            while (matcher.find()) {
+                regex.append(quote(segment, end, matcher.start()));
+                var match = matcher.group();
+                if ("?".equals(match)) {
+                    regex.append('.');
+                } else if ("*".equals(match)) {
+                    regex.append(".*");
+                } else {
+                    int colonIdx = match.indexOf(':');
+                    if (colonIdx == -1)
+                        regex.append(DEFAULT_VARIABLE_PATTERN);
+                    else
+                        regex.append('(').append(match, colonIdx + 1, match.length() - 1).append(')');
+                }
+                end = matcher.end();
+            }
+
+            // No glob pattern was found, this is an exact String match
+            if (end == 0) return null;
+
+            regex.append(quote(segment, end, segment.length()));
+            return Pattern.compile(regex.toString(), Pattern.DOTALL);
+        }
+
+        private static String quote(String s, int start, int end) {
+            return start == end ? "" : Pattern.quote(s.substring(start, end));
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import jakarta.annotation.Nonnull;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.Assert;
+
+import java.util.Set;
+
+/**
+ * Logging decisions of a route, resolved once per request by {@link RoutePolicyResolver}.
+ * <p>
+ * The filters attach it to the request(servlet) or exchange(reactive) under {@link #ATTRIBUTE},
+ * and pass it to the {@link LogPrinter} through {@link LogPrinter.LogItem#routePolicy()}.
+ *
+ * @param ignored             the route matches one of 'exclude-logging-paths'
+ * @param headerMaskKeys      lower case header names to mask
+ * @param requestJsonMasks    JsonPath expressions to mask in a JSON request body
+ * @param requestFormMaskKeys parameter names to mask in a form or multipart request body
+ * @param responseJsonMasks   JsonPath expressions to mask in a JSON response body
+ * @param maxBodyCaptureSize  maximum bytes of a request or response body kept for the log, negative if unlimited
+ */
+public record RoutePolicy(@Nonnull HttpMethod method, @Nonnull String path, boolean ignored,
+                          @Nonnull Set<String> headerMaskKeys,
+                          @Nonnull Set<String> requestJsonMasks, @Nonnull Set<String> requestFormMaskKeys,
+                          @Nonnull Set<String> responseJsonMasks, long maxBodyCaptureSize) {
+    public static final String ATTRIBUTE = RoutePolicy.class.getName();
+    public static final long UNLIMITED_CAPTURE_SIZE = -1;
+
+    public RoutePolicy {
+        Assert.notNull(method, "method must not be null");
+        Assert.notNull(path, "path must not be null");
+        Assert.notNull(headerMaskKeys, "headerMaskKeys must not be null");
+        Assert.notNull(requestJsonMasks, "requestJsonMasks must not be null");
+        Assert.notNull(requestFormMaskKeys, "requestFormMaskKeys must not be null");
+        Assert.notNull(responseJsonMasks, "responseJsonMasks must not be null");
+    }
+
+    /**
+     * A policy without a capture limit.
+     */
+    public RoutePolicy(@Nonnull HttpMethod method, @Nonnull String path, boolean ignored,
+                       @Nonnull Set<String> headerMaskKeys,
+                       @Nonnull Set<String> requestJsonMasks, @Nonnull Set<String> requestFormMaskKeys,
+                       @Nonnull Set<String> responseJsonMasks) {
+        this(method, path, ignored, headerMaskKeys, requestJsonMasks, requestFormMaskKeys, responseJsonMasks, UNLIMITED_CAPTURE_SIZE);
+    }
+}
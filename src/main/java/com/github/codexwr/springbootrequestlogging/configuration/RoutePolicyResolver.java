@@ -0,0 +1,9 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import jakarta.annotation.Nonnull;
+import org.springframework.http.HttpMethod;
+
+public interface RoutePolicyResolver {
+    @Nonnull
+    RoutePolicy resolve(@Nonnull HttpMethod method, @Nonnull String path);
+}
@@ -0,0 +1,26 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import jakarta.annotation.Nonnull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Masks a body chunk by chunk as it passes, instead of capturing it to be masked when printed.
+ * <p>
+ * Only the masked output is kept, so a large(or streamed) body is logged without being aggregated.
+ * The calls are not thread safe, the caller feeds the chunks in order.
+ */
+public interface StreamingBodyMask {
+    /**
+     * Masks the bytes of the chunk, from its position to its limit. The chunk is not kept, nor is its position moved.
+     */
+    void write(@Nonnull ByteBuffer chunk);
+
+    /**
+     * @param originalLength bytes of the whole body, the body is logged as truncated if less was masked,
+     *                       or {@link LogBody#UNKNOWN_LENGTH} if it was not read to its end
+     * @return the body masked so far, printed as it is
+     */
+    @Nonnull
+    LogBody toLogBody(long originalLength);
+}
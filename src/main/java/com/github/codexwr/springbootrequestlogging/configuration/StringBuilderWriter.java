@@ -0,0 +1,43 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import java.io.Writer;
+
+/**
+ * Writes into the log message being assembled, without the synchronization of {@link java.io.StringWriter}.
+ */
+final class StringBuilderWriter extends Writer {
+    private final StringBuilder output;
+
+    StringBuilderWriter(StringBuilder output) {
+        this.output = output;
+    }
+
+    @Override
+    public void write(int c) {
+        output.append((char) c);
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int length) {
+        output.append(chars, offset, length);
+    }
+
+    @Override
+    public void write(String str, int offset, int length) {
+        output.append(str, offset, offset + length);
+    }
+
+    @Override
+    public Writer append(CharSequence csq) {
+        output.append(csq);
+        return this;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,292 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import jakarta.annotation.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Redacts secrets found by their value in a logged body, whatever key or text they are in.
+ * <ul>
+ *     <li>token prefixes(e.g. {@code Bearer }, {@code eyJ}, {@code sk_}): the token following the prefix</li>
+ *     <li>card numbers: runs of 13 to 19 digits starting with 2 to 6, optionally grouped by ' ' or '-', that pass the Luhn check</li>
+ *     <li>emails</li>
+ * </ul>
+ * The prefixes are compiled into one Aho-Corasick automaton(ASCII, ignoring case), so the body is scanned once,
+ * in time linear to its length whatever the number of prefixes.
+ */
+final class ValueRedactor {
+    private static final int ALPHABET = 128;
+    private static final int MIN_TOKEN_LENGTH = 8;
+    private static final int MIN_CARD_DIGITS = 13;
+    private static final int MAX_CARD_DIGITS = 19;
+
+    private final String maskString;
+    // goto function of the automaton, completed with the failure links: [state][char] -> state
+    private final int[][] transitions;
+    // length of the longest prefix ending at a state, 0 if none
+    private final int[] matchLengths;
+    private final boolean cardNumbers;
+    private final boolean emails;
+
+    ValueRedactor(String maskString, @Nullable Collection<String> tokenPrefixes, boolean cardNumbers, boolean emails) {
+        Assert.notNull(maskString, "maskString must not be null");
+
+        this.maskString = maskString;
+        this.cardNumbers = cardNumbers;
+        this.emails = emails;
+
+        var prefixes = CollectionUtils.isEmpty(tokenPrefixes) ? List.<String>of() : tokenPrefixes;
+        int maxStates = 1 + prefixes.stream().mapToInt(String::length).sum();
+        var gotoTable = new int[maxStates][];
+        var lengths = new int[maxStates];
+        gotoTable[0] = newState();
+        int states = 1;
+
+        for (String prefix : prefixes) {
+            Assert.hasLength(prefix, "token prefix must not be empty");
+
+            int state = 0;
+            for (char c : prefix.toCharArray()) {
+                Assert.isTrue(c < ALPHABET, () -> "token prefix must be ASCII: " + prefix);
+                c = toLowerCase(c);
+
+                if (gotoTable[state][c] < 0) {
+                    gotoTable[states] = newState();
+                    gotoTable[state][c] = states++;
+                }
+                state = gotoTable[state][c];
+            }
+            lengths[state] = Math.max(lengths[state], prefix.length());
+        }
+
+        this.transitions = Arrays.copyOf(gotoTable, states);
+        this.matchLengths = Arrays.copyOf(lengths, states);
+        buildFailureLinks();
+    }
+
+    @Nullable
+    static ValueRedactor of(String maskString, LoggingFilterProperties.ValueRedaction properties) {
+        if (!properties.isEnabled()) return null;
+
+        return new ValueRedactor(maskString, properties.getTokenPrefixes(), properties.isCardNumbers(), properties.isEmails());
+    }
+
+    private static int[] newState() {
+        var state = new int[ALPHABET];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    /**
+     * Turns the trie into a DFA: a missing transition follows the failure link,
+     * and a state also reports the prefixes of its failure state.
+     */
+    private void buildFailureLinks() {
+        var failure = new int[transitions.length];
+        var queue = new ArrayDeque<Integer>();
+
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = transitions[0][c];
+            if (next < 0) {
+                transitions[0][c] = 0;
+            } else {
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            matchLengths[state] = Math.max(matchLengths[state], matchLengths[failure[state]]);
+
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = transitions[state][c];
+                if (next < 0) {
+                    transitions[state][c] = transitions[failure[state]][c];
+                } else {
+                    failure[next] = transitions[failure[state]][c];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+
+    /**
+     * Redacts the text of the output from the start index, in place.
+     * The output is only rewritten if a secret is found.
+     */
+    void redact(StringBuilder output, int start) {
+        // scanning an array is much cheaper than StringBuilder.charAt
+        int length = output.length() - start;
+        var text = new char[length];
+        output.getChars(start, output.length(), text, 0);
+
+        StringBuilder redacted = null;
+        int copied = 0;
+        int state = 0;
+        int cardCheckedUntil = 0;
+        int[] digits = null;
+
+        for (int i = 0; i < length; i++) {
+            char c = text[i];
+
+            int matchEnd = -1;
+            int keepUntil = -1;
+            if (cardNumbers && isDigit(c) && i >= cardCheckedUntil && !isLetterOrDigit(text, length, i - 1)) {
+                if (digits == null) digits = new int[MAX_CARD_DIGITS];
+                int runEnd = cardNumberEnd(text, length, i, digits);
+                if (runEnd > 0) {
+                    keepUntil = i;
+                    matchEnd = runEnd;
+                } else {
+                    cardCheckedUntil = skipDigits(text, length, i);
+                }
+            } else if (emails && c == '@') {
+                int localStart = Math.max(copied, localPartStart(text, i));
+                int domainEnd = domainEnd(text, length, i + 1);
+                if (localStart < i && domainEnd > 0) {
+                    keepUntil = localStart;
+                    matchEnd = domainEnd;
+                }
+            }
+
+            if (matchEnd < 0) {
+                state = c < ALPHABET ? transitions[state][toLowerCase(c)] : 0;
+                int prefixLength = matchLengths[state];
+                if (prefixLength > 0 && isBoundary(text, length, i - prefixLength)) {
+                    int tokenEnd = tokenEnd(text, length, i + 1);
+                    if (tokenEnd - (i + 1) >= MIN_TOKEN_LENGTH) {
+                        // a prefix ending with a separator(e.g. 'Bearer ') is kept as the label of the token
+                        keepUntil = isTokenChar(c) ? i - prefixLength + 1 : i + 1;
+                        matchEnd = tokenEnd;
+                    }
+                }
+            }
+
+            if (matchEnd < 0) continue;
+
+            if (redacted == null) redacted = new StringBuilder(length);
+            redacted.append(text, copied, Math.max(copied, keepUntil) - copied).append(maskString);
+            copied = matchEnd;
+            i = matchEnd - 1;
+            state = 0;
+        }
+
+        if (redacted == null) return;
+
+        redacted.append(text, copied, length - copied);
+        output.setLength(start);
+        output.append(redacted);
+    }
+
+    /**
+     * @return the end of the card number starting at the index, -1 if it is not one
+     */
+    private static int cardNumberEnd(char[] text, int length, int start, int[] digits) {
+        // issuer identification numbers start with 2 to 6, which also leaves out epoch millis and zero runs
+        if (text[start] < '2' || text[start] > '6') return -1;
+
+        int count = 0;
+        int end = start;
+        for (int i = start; i < length; i++) {
+            char c = text[i];
+            if (isDigit(c)) {
+                if (count == MAX_CARD_DIGITS) return -1;
+                digits[count++] = c - '0';
+                end = i + 1;
+            } else if ((c == ' ' || c == '-') && i + 1 < length && isDigit(text[i + 1]) && isDigit(text[i - 1])) {
+                continue;
+            } else {
+                break;
+            }
+        }
+
+        if (count < MIN_CARD_DIGITS || isLetterOrDigit(text, length, end)) return -1;
+        return luhn(digits, count) ? end : -1;
+    }
+
+    private static boolean luhn(int[] digits, int count) {
+        int sum = 0;
+        for (int i = 0; i < count; i++) {
+            int digit = digits[count - 1 - i];
+            if (i % 2 == 1) {
+                digit *= 2;
+                if (digit > 9) digit -= 9;
+            }
+            sum += digit;
+        }
+        return sum % 10 == 0;
+    }
+
+    private static int skipDigits(char[] text, int length, int start) {
+        int i = start;
+        while (i < length && isDigit(text[i])) i++;
+        return i;
+    }
+
+    private static int localPartStart(char[] text, int at) {
+        int i = at;
+        while (i > 0 && isLocalPartChar(text[i - 1])) i--;
+        return i;
+    }
+
+    /**
+     * @return the end of the domain, -1 if it has no dot between labels
+     */
+    private static int domainEnd(char[] text, int length, int start) {
+        int end = start;
+        int lastDot = -1;
+        while (end < length && (isLetterOrDigit(text[end]) || text[end] == '-' || text[end] == '.')) {
+            if (text[end] == '.') {
+                // a trailing dot ends the sentence, not the domain
+                if (!isLetterOrDigit(text, length, end + 1)) break;
+                lastDot = end;
+            }
+            end++;
+        }
+
+        return lastDot > start ? end : -1;
+    }
+
+    private static int tokenEnd(char[] text, int length, int start) {
+        int i = start;
+        while (i < length && isTokenChar(text[i])) i++;
+        return i;
+    }
+
+    /**
+     * @return the character at the index can not be part of a word, or is out of the text
+     */
+    private static boolean isBoundary(char[] text, int length, int index) {
+        return index < 0 || index >= length || !(isLetterOrDigit(text[index]) || text[index] == '_');
+    }
+
+    private static boolean isTokenChar(char c) {
+        return isLetterOrDigit(c) || c == '-' || c == '_' || c == '.' || c == '~' || c == '+' || c == '/' || c == '=';
+    }
+
+    private static boolean isLocalPartChar(char c) {
+        return isLetterOrDigit(c) || c == '.' || c == '_' || c == '%' || c == '+' || c == '-';
+    }
+
+    private static boolean isLetterOrDigit(char[] text, int length, int index) {
+        return index >= 0 && index < length && isLetterOrDigit(text[index]);
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c);
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -1,11 +1,12 @@
 package com.github.codexwr.springbootrequestlogging.reactor;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBuffer;
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBufferPool;
+import com.github.codexwr.springbootrequestlogging.configuration.LogBody;
+import com.github.codexwr.springbootrequestlogging.configuration.RoutePolicy;
+import com.github.codexwr.springbootrequestlogging.configuration.StreamingBodyMask;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
@@ -15,95 +16,266 @@ import org.springframework.http.codec.multipart.FormFieldPart;
 import org.springframework.http.codec.multipart.Part;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
-import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.server.ServerWebExchange;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
+/**
+ * Captures the request body for the log, either while the handler reads it, or by reading it ahead of the handler.
+ * <p>
+ * Captured on read, the handler reads the body as received, with its backpressure, and the first bytes,
+ * up to the capture size, are copied as they pass. Nothing is retained. A body the handler did not read is read
+ * for the log the same way, each buffer released once copied, and is not replayed. It is read up to a byte past the
+ * capture size only, and a failed read only ends the log body.
+ * <p>
+ * Read ahead, the received buffers(pooled, on Netty) are kept as they are, up to the retention size, and replayed as
+ * read-only views of them, so the body is not copied for the handler. The log reads the first bytes, up to the capture
+ * size, from the same views. Past the retention size, the reading ahead stops: the handler reads the retained buffers,
+ * then the rest of the body as it is received, and the body is logged as truncated. The buffers are released once
+ * the exchange is complete.
+ * <p>
+ * If the printer masks the body as it passes({@link StreamingBodyMask}), the bytes are masked instead of copied.
+ */
 class CachedRequestDecorator extends ServerHttpRequestDecorator implements LoggingDecorator {
     private static final Logger log = LoggerFactory.getLogger(CachedRequestDecorator.class);
-    private static final ObjectMapper objectMapper = new ObjectMapper();
 
     private final Supplier<ServerWebExchange> exchangeSupplier;
-    private byte[] cachedBody = null;
+    private final long maxCaptureSize;
+    // negative if unlimited
+    private final long maxRetainedSize;
+    private final CaptureBuffer cachedBody;
+    private final boolean captureOnRead;
+    private final Function<MediaType, StreamingBodyMask> streamingMasks;
+    @Nullable
+    private StreamingBodyMask streamingMask;
+    private boolean streamingMaskResolved = false;
+    // received buffers, kept until the release
+    private final List<DataBuffer> retainedBuffers = new ArrayList<>();
+    private final ReentrantLock retainLock = new ReentrantLock();
+    private long retainedSize = 0;
+    private long bodySize = 0;
+    private boolean released = false;
+    @Nullable
+    private volatile ReadAhead readAhead;
+    // views of the retained buffers, once the body is received or the retention size is reached
+    private final Mono<List<ByteBuffer>> bodyViews = Mono.defer(this::readAhead).cache();
+    // the handler reads the body itself, captured on read
+    private volatile boolean readByHandler = false;
+    private final AtomicBoolean consumed = new AtomicBoolean(false);
+    // the body was read to its end, the body size is its length
+    private volatile boolean ended = false;
+    private volatile Runnable bodyConsumedListener = () -> {
+    };
+    // the body the handler did not read, read once for the log
+    private final Mono<Void> drained = Mono.defer(this::drainForLog).cache();
 
     public CachedRequestDecorator(ServerHttpRequest delegate, Supplier<ServerWebExchange> exchangeSupplier) {
+        this(delegate, exchangeSupplier, RoutePolicy.UNLIMITED_CAPTURE_SIZE, CaptureBufferPool.unpooled());
+    }
+
+    public CachedRequestDecorator(ServerHttpRequest delegate, Supplier<ServerWebExchange> exchangeSupplier, long maxCaptureSize, CaptureBufferPool bufferPool) {
+        this(delegate, exchangeSupplier, maxCaptureSize, bufferPool, false, -1, contentType -> null);
+    }
+
+    /**
+     * @param maxCaptureSize  bytes of the body kept for the log, negative if unlimited.
+     *                        The handler still reads the whole body.
+     * @param captureOnRead   the body is copied while the handler reads it, instead of being read ahead
+     * @param maxRetainedSize bytes of the body read ahead of the handler, negative if unlimited
+     * @param streamingMasks  the mask of a body of the content type, {@code null} if it is captured
+     */
+    public CachedRequestDecorator(ServerHttpRequest delegate, Supplier<ServerWebExchange> exchangeSupplier, long maxCaptureSize, CaptureBufferPool bufferPool, boolean captureOnRead, long maxRetainedSize, Function<MediaType, StreamingBodyMask> streamingMasks) {
         super(delegate);
         this.exchangeSupplier = exchangeSupplier;
+        this.maxCaptureSize = maxCaptureSize;
+        this.maxRetainedSize = maxRetainedSize;
+        this.cachedBody = bufferPool.newBuffer();
+        this.captureOnRead = captureOnRead;
+        this.streamingMasks = streamingMasks;
     }
 
+    /**
+     * Each subscriber of a body read ahead reads its own views of the retained buffers, which it may release without effect.
+     * The rest of a body past the retention size can only be read once.
+     */
     @Override
     @Nonnull
     public Flux<DataBuffer> getBody() {
-        return Mono.justOrEmpty(cachedBody) // 1. 캐쉬 사용
-                .switchIfEmpty(getCachedContentBody()) // 2. 캐쉬가 없으면 캐쉬 처리
-                .map(DefaultDataBufferFactory.sharedInstance::wrap) // 3. DataBuffer 생성 및 body 전달
-                .cast(DataBuffer.class)
-                .flux()
-                .switchIfEmpty(super.getBody()); // 4. [2]에서 캐쉬 되지 않으면 raw body 사용
+        if (!isCachedBody())
+            return super.getBody();
+
+        return Flux.defer(() -> captureOnRead ? readThrough() : replay());
+    }
+
+    private Flux<DataBuffer> readThrough() {
+        readByHandler = true;
+
+        return super.getBody()
+                .doOnNext(this::capture)
+                .doOnComplete(() -> ended = true)
+                .doFinally(signal -> onConsumed());
+    }
+
+    private Flux<DataBuffer> replay() {
+        return bodyViews.flatMapMany(views -> {
+            Flux<DataBuffer> replayed = Flux.fromIterable(views).map(view -> DefaultDataBufferFactory.sharedInstance.wrap(view.duplicate()));
+            var subscriber = readAhead;
+            return subscriber != null && subscriber.overflowed ? replayed.concatWith(subscriber.rest()) : replayed;
+        });
+    }
+
+    /**
+     * Completed, failed or cancelled, the body is not read any further.
+     */
+    private void onConsumed() {
+        if (consumed.compareAndSet(false, true)) bodyConsumedListener.run();
+    }
+
+    /**
+     * @return the body is captured while the handler reads it, so it can only be logged after
+     */
+    public boolean isCapturedOnRead() {
+        return captureOnRead && isCachedBody() && getHeaders().getContentLength() != 0;
+    }
+
+    /**
+     * @param listener called once the handler stops reading the body
+     */
+    public void setBodyConsumedListener(Runnable listener) {
+        this.bodyConsumedListener = listener;
     }
 
     private boolean isCachedBody() {
         return isCompatibleMediaType(MediaType.APPLICATION_JSON);
     }
 
-    private Mono<byte[]> storeCachedBody(Flux<DataBuffer> dataBufferPublisher) {
-        return DataBufferUtils.join(dataBufferPublisher)
-                .map(it -> {
-                    cachedBody = new byte[it.readableByteCount()];
-                    it.toByteBuffer(ByteBuffer.wrap(cachedBody));
-                    DataBufferUtils.release(it);
-                    return cachedBody;
-                });
+    private Mono<List<ByteBuffer>> readAhead() {
+        var subscriber = new ReadAhead();
+        readAhead = subscriber;
+        super.getBody().subscribe(subscriber);
+
+        return subscriber.retained.asMono();
     }
 
-    private Mono<byte[]> getInputContent() {
-        if (isCompatibleMediaType(MediaType.APPLICATION_FORM_URLENCODED))
-            return getFormDataContent();
+    /**
+     * Keeps each buffer as it comes, instead of joining them, up to the retention size.
+     *
+     * @return {@code false} if the buffer is past the retention size, it is then kept for the handler only
+     */
+    private boolean retain(DataBuffer dataBuffer) {
+        retainLock.lock();
+        try {
+            // a buffer arriving after the release(e.g. on cancel) is not kept
+            if (released) {
+                DataBufferUtils.release(dataBuffer);
+                return true;
+            }
+            if (maxRetainedSize >= 0 && retainedSize >= maxRetainedSize) {
+                bodySize += dataBuffer.readableByteCount();
+                return false;
+            }
 
-        if (isCompatibleMediaType(MediaType.MULTIPART_FORM_DATA))
-            return getMultipartDataContent();
+            retainedBuffers.add(dataBuffer);
+            retainedSize += dataBuffer.readableByteCount();
+            forLog(dataBuffer, false);
+            return true;
+        } finally {
+            retainLock.unlock();
+        }
+    }
 
-        return Mono.empty();
+    /**
+     * A buffer read by the handler is its own, it is only copied up to the capture size.
+     */
+    private void capture(DataBuffer dataBuffer) {
+        retainLock.lock();
+        try {
+            if (!released) forLog(dataBuffer, true);
+        } finally {
+            retainLock.unlock();
+        }
     }
 
-    private Mono<byte[]> getFormDataContent() {
-        var exchange = exchangeSupplier.get();
+    /**
+     * Masked if the printer masks the body as it passes, otherwise copied if it is not retained.
+     */
+    private void forLog(DataBuffer dataBuffer, boolean copy) {
+        if (!streamingMaskResolved) {
+            streamingMask = streamingMasks.apply(getHeaders().getContentType());
+            streamingMaskResolved = true;
+        }
 
-        return exchange.getFormData()
-                .mapNotNull(this::serializedMultiValueMap);
+        try (var buffers = dataBuffer.readableByteBuffers()) {
+            while (buffers.hasNext()) {
+                var buffer = buffers.next();
+                if (streamingMask != null) {
+                    streamingMask.write(buffer);
+                } else if (copy) {
+                    int capture = capturableSize(buffer.remaining());
+                    if (capture > 0) cachedBody.write(buffer.slice(buffer.position(), capture));
+                }
+                bodySize += buffer.remaining();
+            }
+        }
     }
 
-    private Mono<byte[]> getMultipartDataContent() {
-        var exchange = exchangeSupplier.get();
+    private int capturableSize(int len) {
+        if (maxCaptureSize < 0) return len;
 
-        return exchange.getMultipartData()
-                .map(this::extractMultipartData)
-                .mapNotNull(this::serializedMultiValueMap);
+        return (int) Math.max(0, Math.min(len, maxCaptureSize - bodySize));
     }
 
-    @Nullable
-    private byte[] serializedMultiValueMap(MultiValueMap<String, String> multiValueMap) {
+    private List<ByteBuffer> createBodyViews() {
+        retainLock.lock();
         try {
-            return objectMapper.writeValueAsString(multiValueMap).getBytes(getCharset());
-        } catch (JsonProcessingException e) {
-            log.trace("Failed to serialize multiValueMap", e);
-            return null;
+            var views = new ArrayList<ByteBuffer>(retainedBuffers.size());
+            for (DataBuffer dataBuffer : retainedBuffers) {
+                try (var buffers = dataBuffer.readableByteBuffers()) {
+                    buffers.forEachRemaining(buffer -> {
+                        if (buffer.hasRemaining()) views.add(buffer.asReadOnlyBuffer());
+                    });
+                }
+            }
+            return views;
+        } finally {
+            retainLock.unlock();
         }
     }
 
+    private Mono<MultiValueMap<String, String>> getInputContent() {
+        if (isCompatibleMediaType(MediaType.APPLICATION_FORM_URLENCODED))
+            return exchangeSupplier.get().getFormData();
+
+        if (isCompatibleMediaType(MediaType.MULTIPART_FORM_DATA))
+            return exchangeSupplier.get().getMultipartData()
+                    .map(this::extractMultipartData);
+
+        return Mono.empty();
+    }
+
     private MultiValueMap<String, String> extractMultipartData(MultiValueMap<String, Part> partMap) {
         var partList = partMap.values().stream()
                 .flatMap(Collection::stream)
                 .toList();
 
-        var contents = CollectionUtils.<String, String>toMultiValueMap(new HashMap<>());
+        var contents = new LinkedMultiValueMap<String, String>();
         partList.forEach(part -> {
             if (part instanceof FilePart filePart) {
                 contents.add(filePart.name(), filePart.filename());
@@ -115,15 +287,174 @@ class CachedRequestDecorator extends ServerHttpRequestDecorator implements Loggi
         return contents;
     }
 
-    public Mono<byte[]> getCachedContentBody() {
-        if (!isCachedBody()) return getInputContent();
+    /**
+     * Form and multipart parameters are handed over as they are, and formatted only when logged.
+     * A body the handler reads is logged as far as it is read, truncated if the handler stopped before its end.
+     * A body the handler did not read is read for the log, and no longer replayed to the handler.
+     */
+    public Mono<LogBody> getCachedLogBody() {
+        if (!isCachedBody())
+            return getInputContent().map(LogBody::ofFormData);
+
+        if (readByHandler)
+            return Mono.fromSupplier(this::getCapturedLogBody);
+
+        if (captureOnRead)
+            return drained.then(Mono.fromSupplier(this::getCapturedLogBody));
+
+        return bodyViews.mapNotNull(this::getRetainedLogBody);
+    }
+
+    /**
+     * Copied up to the capture size and released buffer by buffer. The rest is not read: it would hold the response
+     * until the whole body is received, only to be counted. A byte past the capture size tells the body goes on.
+     * <p>
+     * A failed read(e.g. the client aborted) is not the handler's, the body is logged as far as it was read.
+     */
+    private Mono<Void> drainForLog() {
+        return super.getBody()
+                .doOnNext(dataBuffer -> {
+                    try {
+                        capture(dataBuffer);
+                    } finally {
+                        DataBufferUtils.release(dataBuffer);
+                    }
+                })
+                .doOnComplete(() -> ended = true)
+                .takeUntil(dataBuffer -> maxCaptureSize >= 0 && bodySize > maxCaptureSize)
+                .onErrorResume(e -> {
+                    log.trace("Failed to read the request body for the log", e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private LogBody getCapturedLogBody() {
+        retainLock.lock();
+        try {
+            if (released || bodySize == 0) return null;
+
+            return toLogBody(getOriginalLength());
+        } finally {
+            retainLock.unlock();
+        }
+    }
+
+    private long getOriginalLength() {
+        long contentLength = getHeaders().getContentLength();
+        if (contentLength >= 0) return Math.max(bodySize, contentLength);
+
+        return ended ? bodySize : LogBody.UNKNOWN_LENGTH;
+    }
+
+    private LogBody toLogBody(long originalLength) {
+        return streamingMask != null ? streamingMask.toLogBody(originalLength) : cachedBody.toLogBody(getCharset(), originalLength);
+    }
+
+    /**
+     * Read from the views of the retained buffers, not copied.
+     */
+    private LogBody getRetainedLogBody(List<ByteBuffer> views) {
+        retainLock.lock();
+        try {
+            if (released || bodySize == 0) return null;
+
+            var subscriber = readAhead;
+            var originalLength = subscriber != null && subscriber.overflowed ? Math.max(bodySize, getHeaders().getContentLength()) : bodySize;
+            return streamingMask != null ? streamingMask.toLogBody(originalLength) : LogBody.of(views, maxCaptureSize, originalLength, getCharset());
+        } finally {
+            retainLock.unlock();
+        }
+    }
+
+    /**
+     * Releases the received buffers, and gives the capture buffer back to its pool, once the exchange is complete.
+     */
+    public void release() {
+        retainLock.lock();
+        try {
+            if (released) return;
+
+            released = true;
+            retainedBuffers.forEach(DataBufferUtils::release);
+            retainedBuffers.clear();
+            cachedBody.release();
+        } finally {
+            retainLock.unlock();
+        }
 
-        return Mono.justOrEmpty(cachedBody)
-                .switchIfEmpty(storeCachedBody(super.getBody()));
+        var subscriber = readAhead;
+        if (subscriber != null) subscriber.release();
     }
 
-    public Mono<String> getCachedContentString() {
-        return getCachedContentBody()
-                .map(it -> new String(it, getCharset()));
+    /**
+     * Reads the body one buffer at a time while it is retained. The first buffer past the retention size stops it:
+     * the handler reads that buffer, then the rest of the body with its own demand.
+     */
+    private final class ReadAhead extends BaseSubscriber<DataBuffer> {
+        private final Sinks.One<List<ByteBuffer>> retained = Sinks.one();
+        private final Sinks.Many<DataBuffer> rest = Sinks.many().unicast().onBackpressureBuffer();
+        private final AtomicBoolean restTaken = new AtomicBoolean(false);
+        // the first buffer past the retention size
+        private final AtomicReference<DataBuffer> overflow = new AtomicReference<>();
+        private volatile boolean overflowed = false;
+
+        @Override
+        protected void hookOnSubscribe(@Nonnull Subscription subscription) {
+            request(1);
+        }
+
+        @Override
+        protected void hookOnNext(@Nonnull DataBuffer dataBuffer) {
+            if (overflowed) {
+                if (rest.tryEmitNext(dataBuffer).isFailure()) DataBufferUtils.release(dataBuffer);
+                return;
+            }
+            if (retain(dataBuffer)) {
+                request(1);
+                return;
+            }
+
+            overflow.set(dataBuffer);
+            overflowed = true;
+            retained.tryEmitValue(createBodyViews());
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            if (overflowed) rest.tryEmitComplete();
+            else retained.tryEmitValue(createBodyViews());
+        }
+
+        @Override
+        protected void hookOnError(@Nonnull Throwable throwable) {
+            if (overflowed) rest.tryEmitError(throwable);
+            else retained.tryEmitError(throwable);
+        }
+
+        private Flux<DataBuffer> rest() {
+            if (!restTaken.compareAndSet(false, true))
+                return Flux.error(new IllegalStateException("The request body past the retention size can only be read once"));
+
+            return Mono.fromSupplier(this::takeOverflow)
+                    .concatWith(rest.asFlux()
+                            .doOnRequest(this::request)
+                            .doOnCancel(this::cancel))
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+        }
+
+        @Nullable
+        private DataBuffer takeOverflow() {
+            return overflow.getAndSet(null);
+        }
+
+        /**
+         * Stops reading a body the handler did not read to its end.
+         */
+        private void release() {
+            dispose();
+            var dataBuffer = takeOverflow();
+            if (dataBuffer != null) DataBufferUtils.release(dataBuffer);
+        }
     }
 }
@@ -1,6 +1,12 @@
 package com.github.codexwr.springbootrequestlogging.reactor;
 
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBuffer;
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBufferPool;
+import com.github.codexwr.springbootrequestlogging.configuration.LogBody;
+import com.github.codexwr.springbootrequestlogging.configuration.RoutePolicy;
+import com.github.codexwr.springbootrequestlogging.configuration.StreamingBodyMask;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import org.reactivestreams.Publisher;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
@@ -9,13 +15,44 @@ import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.nio.ByteBuffer;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 
+/**
+ * Copies the buffers written to the response into one capture buffer, up to the capture size, as they are written.
+ * If the printer masks the body as it passes({@link StreamingBodyMask}), the buffers are masked instead of copied,
+ * and only the masked output is kept.
+ * <p>
+ * The buffers are not retained, so nothing is left to release when the write is cancelled or fails.
+ * A copy and the release of the capture buffer exclude each other, as a cancel may come while a buffer is copied.
+ */
 class CachedResponseDecorator extends ServerHttpResponseDecorator implements LoggingDecorator {
-    private byte[] cachedBody = null;
+    private final long maxCaptureSize;
+    private final CaptureBuffer cachedBody;
+    private final ReentrantLock captureLock = new ReentrantLock();
+    private final Function<MediaType, StreamingBodyMask> streamingMasks;
+    @Nullable
+    private StreamingBodyMask streamingMask;
+    private long writtenSize = 0;
+    private volatile boolean cached = false;
 
     public CachedResponseDecorator(ServerHttpResponse delegate) {
+        this(delegate, RoutePolicy.UNLIMITED_CAPTURE_SIZE, CaptureBufferPool.unpooled());
+    }
+
+    public CachedResponseDecorator(ServerHttpResponse delegate, long maxCaptureSize, CaptureBufferPool bufferPool) {
+        this(delegate, maxCaptureSize, bufferPool, contentType -> null);
+    }
+
+    /**
+     * @param maxCaptureSize bytes of the body kept for the log, negative if unlimited
+     * @param streamingMasks the mask of a body of the content type, {@code null} if it is captured
+     */
+    public CachedResponseDecorator(ServerHttpResponse delegate, long maxCaptureSize, CaptureBufferPool bufferPool, Function<MediaType, StreamingBodyMask> streamingMasks) {
         super(delegate);
+        this.maxCaptureSize = maxCaptureSize;
+        this.cachedBody = bufferPool.newBuffer();
+        this.streamingMasks = streamingMasks;
     }
 
     @Override
@@ -24,21 +61,75 @@ class CachedResponseDecorator extends ServerHttpResponseDecorator implements Log
         if (!isCachedBody())
             return super.writeWith(body);
 
-        var publisher = Flux.from(body)
-                .doOnNext(dataBuffer -> {
-                    cachedBody = new byte[dataBuffer.readableByteCount()];
-                    dataBuffer.toByteBuffer(ByteBuffer.wrap(cachedBody));
-                });
+        return super.writeWith(Flux.from(body).doOnNext(this::capture));
+    }
+
+    @Override
+    @Nonnull
+    public Mono<Void> writeAndFlushWith(@Nonnull Publisher<? extends Publisher<? extends DataBuffer>> body) {
+        if (!isCachedBody())
+            return super.writeAndFlushWith(body);
+
+        return super.writeAndFlushWith(Flux.from(body).map(chunk -> Flux.from(chunk).doOnNext(this::capture)));
+    }
+
+    private void capture(DataBuffer dataBuffer) {
+        captureLock.lock();
+        try {
+            // the content type is set once the body is written
+            if (!cached) streamingMask = streamingMasks.apply(getHeaders().getContentType());
 
-        return super.writeWith(publisher);
+            try (var buffers = dataBuffer.readableByteBuffers()) {
+                while (buffers.hasNext()) {
+                    var buffer = buffers.next();
+                    if (streamingMask != null) {
+                        streamingMask.write(buffer);
+                    } else {
+                        int capture = capturableSize(buffer.remaining());
+                        if (capture > 0) cachedBody.write(buffer.slice(buffer.position(), capture));
+                    }
+                    writtenSize += buffer.remaining();
+                }
+            }
+            cached = true;
+        } finally {
+            captureLock.unlock();
+        }
+    }
+
+    private int capturableSize(int len) {
+        if (maxCaptureSize < 0) return len;
+
+        return (int) Math.max(0, Math.min(len, maxCaptureSize - writtenSize));
     }
 
     private boolean isCachedBody() {
         return isCompatibleMediaType(MediaType.APPLICATION_JSON);
     }
 
-    public String getCachedContentString() {
-        if (cachedBody == null) return null;
-        return new String(cachedBody, getCharset());
+    /**
+     * @return the bytes written so far, truncated if more was written than the capture size
+     */
+    public LogBody getCachedLogBody() {
+        if (!cached) return null;
+
+        captureLock.lock();
+        try {
+            return streamingMask != null ? streamingMask.toLogBody(writtenSize) : cachedBody.toLogBody(getCharset(), writtenSize);
+        } finally {
+            captureLock.unlock();
+        }
+    }
+
+    /**
+     * Gives the capture buffer back to its pool, once the exchange is complete.
+     */
+    public void release() {
+        captureLock.lock();
+        try {
+            cachedBody.release();
+        } finally {
+            captureLock.unlock();
+        }
     }
 }
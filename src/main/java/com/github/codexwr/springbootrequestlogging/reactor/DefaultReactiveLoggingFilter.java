@@ -1,10 +1,13 @@
 package com.github.codexwr.springbootrequestlogging.reactor;
 
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBufferPool;
 import com.github.codexwr.springbootrequestlogging.configuration.IgnoreLoggingPath;
+import com.github.codexwr.springbootrequestlogging.configuration.LogExecutor;
 import com.github.codexwr.springbootrequestlogging.configuration.LogPrinter;
+import com.github.codexwr.springbootrequestlogging.configuration.RoutePolicy;
+import com.github.codexwr.springbootrequestlogging.configuration.RoutePolicyResolver;
 import jakarta.annotation.Nonnull;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
@@ -13,8 +16,13 @@ import reactor.core.publisher.Mono;
 class DefaultReactiveLoggingFilter implements LoggingFilter {
     private final LogPrinter logPrinter;
     private final IgnoreLoggingPath ignoreLoggingPath;
+    private final RoutePolicyResolver routePolicyResolver;
+    private final CaptureBufferPool captureBufferPool;
+    private final LogExecutor logExecutor;
     private final boolean enableLoggingRequestBody;
     private final boolean enableLoggingResponseBody;
+    private final boolean captureRequestBodyOnRead;
+    private final long maxReadAheadSize;
     private final int order;
 
     @Override
@@ -25,16 +33,25 @@ class DefaultReactiveLoggingFilter implements LoggingFilter {
     @Override
     @Nonnull
     public Mono<Void> filter(ServerWebExchange exchange, @Nonnull WebFilterChain chain) {
-        if (isIgnoreLogging(exchange.getRequest()))
+        if (!logPrinter.isEnabled() || isIgnoreLogging(exchange))
             return chain.filter(exchange);
 
-        LoggingWebExchange webExchange = new LoggingWebExchange(exchange, logPrinter, enableLoggingRequestBody, enableLoggingResponseBody);
+        LoggingWebExchange webExchange = new LoggingWebExchange(exchange, logPrinter, captureBufferPool, logExecutor, enableLoggingRequestBody, enableLoggingResponseBody, captureRequestBodyOnRead, maxReadAheadSize);
         return webExchange
                 .enableLogging()
-                .flatMap(it -> chain.filter(it).onErrorResume(webExchange::enableResponseLoggingWhenError));
+                .flatMap(it -> chain.filter(it).onErrorResume(webExchange::enableResponseLoggingWhenError))
+                .doFinally(signal -> webExchange.release());
     }
 
-    private boolean isIgnoreLogging(ServerHttpRequest request) {
-        return ignoreLoggingPath.isMatch(request.getMethod(), request.getPath().value());
+    private boolean isIgnoreLogging(ServerWebExchange exchange) {
+        return ignoreLoggingPath.isMatch(attachRoutePolicy(exchange));
+    }
+
+    private RoutePolicy attachRoutePolicy(ServerWebExchange exchange) {
+        var request = exchange.getRequest();
+        var policy = routePolicyResolver.resolve(request.getMethod(), request.getPath().value());
+        exchange.getAttributes().put(RoutePolicy.ATTRIBUTE, policy);
+
+        return policy;
     }
 }
@@ -0,0 +1,12 @@
+package com.github.codexwr.springbootrequestlogging.reactor;
+
+/**
+ * Hands the prints of an exchange over to where they run({@link com.github.codexwr.springbootrequestlogging.configuration.LogExecutor}).
+ */
+@FunctionalInterface
+interface LogEmitter {
+    /**
+     * Returns once the print is handed over, never waits for it. The prints of an exchange run in the order they are handed over.
+     */
+    void emit(Runnable print);
+}
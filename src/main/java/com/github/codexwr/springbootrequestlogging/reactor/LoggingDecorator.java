@@ -1,6 +1,9 @@
 package com.github.codexwr.springbootrequestlogging.reactor;
 
+import com.github.codexwr.springbootrequestlogging.configuration.LogBody;
 import com.github.codexwr.springbootrequestlogging.configuration.LogPrinter;
+import com.github.codexwr.springbootrequestlogging.configuration.LoggingFilterProperties.DefaultLogItemType;
+import com.github.codexwr.springbootrequestlogging.configuration.RoutePolicy;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import org.springframework.http.HttpHeaders;
@@ -71,26 +74,34 @@ interface LoggingDecorator {
 
     HttpHeaders getHeaders();
 
-    default Mono<LogPrinter.LogItem> getLogItem(@Nullable ServerWebExchange exchange, @Nonnull LoggingRequestDecorator requestDecorator, @Nullable LoggingResponseDecorator responseDecorator, @Nullable Map<String, String> extraInfo) {
+    /**
+     * Only the items the printer reads are gathered, the others are left {@code null}.
+     */
+    default Mono<LogPrinter.LogItem> getLogItem(@Nonnull LogPrinter logPrinter, @Nullable ServerWebExchange exchange, @Nonnull LoggingRequestDecorator requestDecorator, @Nullable LoggingResponseDecorator responseDecorator, @Nullable Map<String, String> extraInfo) {
+        var includesResponseBody = responseDecorator != null && logPrinter.includes(DefaultLogItemType.RESPONSE_BODY);
         var sessionIdStream = Mono.defer(() -> {
-            if (exchange == null) return Mono.just(Optional.<String>empty());
+            if (exchange == null || !logPrinter.includes(DefaultLogItemType.CLIENT_INFO)) return Mono.just(Optional.<String>empty());
             return exchange.getSession()
                     .filter(WebSession::isStarted)
                     .map(session -> Optional.of(session.getId()))
                     .defaultIfEmpty(Optional.empty());
         });
-        return Mono.zip(sessionIdStream, requestDecorator.getRequestBody(), (sessionId, body) -> new LogPrinter.LogItem(
+        var requestBodyStream = logPrinter.includes(DefaultLogItemType.REQUEST_BODY) ? requestDecorator.getRequestBody() : Mono.just(Optional.<LogBody>empty());
+
+        return Mono.zip(sessionIdStream, requestBodyStream, (sessionId, body) -> new LogPrinter.LogItem(
                         requestDecorator.getMethod(),
                         requestDecorator.getURI().getPath(),
                         requestDecorator.getURI().getQuery(),
                         requestDecorator.getRemoteAddress() != null ? requestDecorator.getRemoteAddress().getHostString() : null,
                         sessionId.orElse(null),
-                        requestDecorator.getHeaders(),
+                        logPrinter.includes(DefaultLogItemType.HEADER) ? requestDecorator.getHeaders() : null,
                         requestDecorator.getContentType(),
                         body.orElse(null),
-                        responseDecorator != null ? responseDecorator.getContentType() : null,
-                        responseDecorator != null ? responseDecorator.getResponseBody() : null,
-                        extraInfo
+                        includesResponseBody ? responseDecorator.getContentType() : null,
+                        includesResponseBody ? responseDecorator.getResponseBody() : null,
+                        extraInfo,
+                        exchange != null && exchange.getAttribute(RoutePolicy.ATTRIBUTE) instanceof RoutePolicy policy ? policy : null,
+                        requestDecorator.getLogAttributes()
                 )
         );
     }
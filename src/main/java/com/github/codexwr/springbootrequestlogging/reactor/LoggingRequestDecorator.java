@@ -1,5 +1,6 @@
 package com.github.codexwr.springbootrequestlogging.reactor;
 
+import com.github.codexwr.springbootrequestlogging.configuration.LogBody;
 import com.github.codexwr.springbootrequestlogging.configuration.LogPrinter;
 import lombok.Getter;
 import org.springframework.http.server.reactive.ServerHttpRequest;
@@ -7,41 +8,81 @@ import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 class LoggingRequestDecorator extends ServerHttpRequestDecorator implements LoggingDecorator {
     private final Supplier<ServerWebExchange> exchangeSupplier;
     private final LogPrinter logPrinter;
+    private final LogEmitter logEmitter;
 
     @Getter
-    private Long executionTime = System.currentTimeMillis();
+    private final Long executionTime = System.currentTimeMillis();
 
-    public LoggingRequestDecorator(ServerHttpRequest delegate, Supplier<ServerWebExchange> exchangeSupplier, LogPrinter logPrinter) {
+    private final Mono<Void> print = Mono.defer(this::doLogPrint).cache();
+
+    @Getter
+    private final Map<String, Object> logAttributes = new ConcurrentHashMap<>();
+
+    public LoggingRequestDecorator(ServerHttpRequest delegate, Supplier<ServerWebExchange> exchangeSupplier, LogPrinter logPrinter, LogEmitter logEmitter) {
         super(delegate);
 
         this.exchangeSupplier = exchangeSupplier;
         this.logPrinter = logPrinter;
+        this.logEmitter = logEmitter;
+    }
+
+    /**
+     * Prints the enter line once. A body captured while the handler reads it is only known after,
+     * so the line waits for the body to be consumed, or for the response at the latest.
+     *
+     * @return completes once the line is handed over, or right away if it waits for the body
+     */
+    public Mono<Void> logPrintWhenBodyConsumed() {
+        var delegate = getNativeRequest(getDelegate(), CachedRequestDecorator.class);
+        if (delegate == null || !delegate.isCapturedOnRead())
+            return logPrint();
+
+        delegate.setBodyConsumedListener(() -> logPrint().subscribe());
+        return Mono.empty();
     }
 
+    /**
+     * Prints the enter line, if it is not printed yet. A later call completes once the line is handed over.
+     */
     public Mono<Void> logPrint() {
-        executionTime = System.currentTimeMillis();
+        return print;
+    }
+
+    private Mono<Void> doLogPrint() {
+        if (!logPrinter.isEnabled()) return Mono.empty();
 
-        return getLogItem(exchangeSupplier.get(), this, null, null)
-                .doOnNext(logPrinter::request)
+        return getLogItem(logPrinter, exchangeSupplier.get(), this, null, null)
+                .doOnNext(logItem -> logEmitter.emit(() -> logPrinter.request(logItem)))
                 .then();
     }
 
-    public Mono<Optional<String>> getRequestBody() {
-        Mono<Optional<String>> content = Mono.just(Optional.empty());
+    public Mono<Optional<LogBody>> getRequestBody() {
+        Mono<Optional<LogBody>> content = Mono.just(Optional.empty());
 
         var delegate = getNativeRequest(getDelegate(), CachedRequestDecorator.class);
         if (delegate != null) {
-            content = delegate.getCachedContentString()
+            content = delegate.getCachedLogBody()
                     .map(Optional::of)
                     .defaultIfEmpty(Optional.empty());
         }
 
         return content;
     }
+
+    /**
+     * Gives the capture buffer of the body back to its pool, once the exchange is complete.
+     * The handler reads the body from the buffer, so it is not released when the response is logged(e.g. on commit).
+     */
+    public void releaseRequestBody() {
+        var delegate = getNativeRequest(getDelegate(), CachedRequestDecorator.class);
+        if (delegate != null) delegate.release();
+    }
 }
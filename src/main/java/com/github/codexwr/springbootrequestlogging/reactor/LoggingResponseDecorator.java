@@ -1,5 +1,6 @@
 package com.github.codexwr.springbootrequestlogging.reactor;
 
+import com.github.codexwr.springbootrequestlogging.configuration.LogBody;
 import com.github.codexwr.springbootrequestlogging.configuration.LogPrinter;
 import jakarta.annotation.Nonnull;
 import org.reactivestreams.Publisher;
@@ -18,15 +19,17 @@ class LoggingResponseDecorator extends ServerHttpResponseDecorator implements Lo
     private final LoggingRequestDecorator loggingRequestDelegate;
     private final Supplier<ServerWebExchange> exchangeSupplier;
     private final LogPrinter logPrinter;
+    private final LogEmitter logEmitter;
 
     private final Sinks.Empty<Void> printComplete = Sinks.empty();
 
-    public LoggingResponseDecorator(ServerHttpResponse delegate, Supplier<ServerWebExchange> exchangeSupplier, LoggingRequestDecorator loggingRequestDelegate, LogPrinter logPrinter) {
+    public LoggingResponseDecorator(ServerHttpResponse delegate, Supplier<ServerWebExchange> exchangeSupplier, LoggingRequestDecorator loggingRequestDelegate, LogPrinter logPrinter, LogEmitter logEmitter) {
         super(delegate);
 
         this.loggingRequestDelegate = loggingRequestDelegate;
         this.exchangeSupplier = exchangeSupplier;
         this.logPrinter = logPrinter;
+        this.logEmitter = logEmitter;
     }
 
     @Override
@@ -51,19 +54,31 @@ class LoggingResponseDecorator extends ServerHttpResponseDecorator implements Lo
         return Mono.just(true)
                 .takeUntilOther(printComplete.asMono())
                 .doOnNext(it -> printComplete.tryEmitEmpty())
-                .flatMap(it -> getLogItem(exchange, loggingRequestDelegate, this, null))
+                .filter(it -> logPrinter.isEnabled())
+                // the enter line may still wait for the body the handler did not read, and is handed over first
+                .flatMap(it -> loggingRequestDelegate.logPrint().thenReturn(it))
+                .flatMap(it -> getLogItem(logPrinter, exchange, loggingRequestDelegate, this, null))
                 .doOnNext(logItem -> {
-                    logPrinter.response(executionTime(),
-                            Objects.requireNonNullElse(getStatusCode(), HttpStatus.VARIANT_ALSO_NEGOTIATES),
-                            logItem
-                    );
+                    // taken now, the print may run later
+                    var executionTime = executionTime();
+                    var status = Objects.requireNonNullElse(getStatusCode(), HttpStatus.VARIANT_ALSO_NEGOTIATES);
+                    // not waited for, the response is not held back by its log line
+                    logEmitter.emit(() -> logPrinter.response(executionTime, status, logItem));
                 }).then();
     }
 
-    public String getResponseBody() {
+    /**
+     * Gives the capture buffer of the body back to its pool, once the exchange is complete.
+     */
+    public void releaseResponseBody() {
+        var delegate = getNativeResponse(getDelegate(), CachedResponseDecorator.class);
+        if (delegate != null) delegate.release();
+    }
+
+    public LogBody getResponseBody() {
         var delegate = getNativeResponse(getDelegate(), CachedResponseDecorator.class);
         if (delegate != null) {
-            return delegate.getCachedContentString();
+            return delegate.getCachedLogBody();
         }
 
         return null;
@@ -1,10 +1,17 @@
 package com.github.codexwr.springbootrequestlogging.reactor;
 
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBufferPool;
+import com.github.codexwr.springbootrequestlogging.configuration.LogExecutor;
 import com.github.codexwr.springbootrequestlogging.configuration.LogPrinter;
+import com.github.codexwr.springbootrequestlogging.configuration.LoggingFilterProperties.DefaultLogItemType;
+import com.github.codexwr.springbootrequestlogging.configuration.RoutePolicy;
+import com.github.codexwr.springbootrequestlogging.configuration.StreamingBodyMask;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.ErrorResponseException;
@@ -13,24 +20,49 @@ import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.ServerWebExchangeDecorator;
 import reactor.core.publisher.Mono;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
 class LoggingWebExchange extends ServerWebExchangeDecorator {
     private final LoggingRequestDecorator loggingRequestDecorator;
     private final LoggingResponseDecorator loggingResponseDecorator;
+    private final LogExecutor logExecutor;
+    // the exchange and each print handed over, the capture buffers the prints read are released once all are done.
+    // 0 is terminal: the buffers are released, and a print emitted after is dropped
+    private final AtomicInteger pendingReleases = new AtomicInteger(1);
+    private final AtomicBoolean released = new AtomicBoolean(false);
+    // the print handed over last, a print waits for it when the executor does not keep the order
+    private final AtomicReference<CompletableFuture<Void>> lastPrint = new AtomicReference<>(CompletableFuture.completedFuture(null));
 
-    protected LoggingWebExchange(ServerWebExchange delegate, LogPrinter logPrinter, boolean isCachedRequest, boolean isCachedResponse) {
+    protected LoggingWebExchange(ServerWebExchange delegate, LogPrinter logPrinter, CaptureBufferPool bufferPool, LogExecutor logExecutor, boolean isCachedRequest, boolean isCachedResponse, boolean captureRequestOnRead, long maxReadAheadSize) {
         super(delegate);
+        this.logExecutor = logExecutor;
 
         // default
         var req = super.getRequest();
         var res = super.getResponse();
 
         // cached
-        if (isCachedRequest) req = new CachedRequestDecorator(req, this::getDelegate);
-        if (isCachedResponse) res = new CachedResponseDecorator(res);
+        var policy = delegate.getAttribute(RoutePolicy.ATTRIBUTE) instanceof RoutePolicy routePolicy ? routePolicy : null;
+        var maxCaptureSize = policy != null ? policy.maxBodyCaptureSize() : RoutePolicy.UNLIMITED_CAPTURE_SIZE;
+        if (isCachedRequest)
+            req = new CachedRequestDecorator(req, this::getDelegate, maxCaptureSize, bufferPool, captureRequestOnRead, maxReadAheadSize, streamingMasks(logPrinter, policy, DefaultLogItemType.REQUEST_BODY, maxCaptureSize));
+        if (isCachedResponse)
+            res = new CachedResponseDecorator(res, maxCaptureSize, bufferPool, streamingMasks(logPrinter, policy, DefaultLogItemType.RESPONSE_BODY, maxCaptureSize));
 
         // logger
-        loggingRequestDecorator = new LoggingRequestDecorator(req, this::getDelegate, logPrinter);
-        loggingResponseDecorator = new LoggingResponseDecorator(res, this::getDelegate, loggingRequestDecorator, logPrinter);
+        loggingRequestDecorator = new LoggingRequestDecorator(req, this::getDelegate, logPrinter, this::emit);
+        loggingResponseDecorator = new LoggingResponseDecorator(res, this::getDelegate, loggingRequestDecorator, logPrinter, this::emit);
+    }
+
+    /**
+     * The printer may mask a body as it passes, instead of having it captured, once its content type is known.
+     */
+    private static Function<MediaType, StreamingBodyMask> streamingMasks(LogPrinter logPrinter, @Nullable RoutePolicy policy, DefaultLogItemType itemType, long maxMaskedLength) {
+        return contentType -> policy != null && contentType != null ? logPrinter.newStreamingMask(policy, itemType, contentType, maxMaskedLength) : null;
     }
 
     @Override
@@ -45,8 +77,60 @@ class LoggingWebExchange extends ServerWebExchangeDecorator {
         return loggingResponseDecorator;
     }
 
+    /**
+     * A body captured while the handler reads it does not hold the handler back, its enter line is printed later.
+     */
     public Mono<ServerWebExchange> enableLogging() {
-        return Mono.defer(() -> loggingRequestDecorator.logPrint().then(Mono.just(this)));
+        return Mono.defer(() -> loggingRequestDecorator.logPrintWhenBodyConsumed().then(Mono.just(this)));
+    }
+
+    /**
+     * Only the log item(the captured bodies and the metadata) is handed over, the print masks and formats it.
+     * The exchange does not wait for the print: on a pool of threads, the exit line is handed over once the enter line is printed.
+     * <p>
+     * A print emitted once the buffers are released(e.g. the enter line of a body consumed after the exchange completed)
+     * is dropped, its buffers may already be reused by another exchange.
+     */
+    private void emit(Runnable print) {
+        if (pendingReleases.getAndUpdate(pending -> pending == 0 ? 0 : pending + 1) == 0) return;
+        if (logExecutor.isOrdered()) {
+            execute(print, null);
+            return;
+        }
+
+        var printed = new CompletableFuture<Void>();
+        lastPrint.getAndSet(printed).whenComplete((result, error) -> execute(print, printed));
+    }
+
+    private void execute(Runnable print, @Nullable CompletableFuture<Void> printed) {
+        Runnable task = () -> {
+            try {
+                print.run();
+            } finally {
+                onPrinted(printed);
+            }
+        };
+
+        if (!logExecutor.execute(task)) onPrinted(printed);
+    }
+
+    private void onPrinted(@Nullable CompletableFuture<Void> printed) {
+        if (printed != null) printed.complete(null);
+        releaseIfDone();
+    }
+
+    /**
+     * Gives the capture buffers back to their pool, once the exchange is complete and the prints handed over are done.
+     */
+    public void release() {
+        if (released.compareAndSet(false, true)) releaseIfDone();
+    }
+
+    private void releaseIfDone() {
+        if (pendingReleases.decrementAndGet() != 0) return;
+
+        loggingResponseDecorator.releaseResponseBody();
+        loggingRequestDecorator.releaseRequestBody();
     }
 
     public Mono<Void> enableResponseLoggingWhenError(Throwable error) {
@@ -1,8 +1,11 @@
 package com.github.codexwr.springbootrequestlogging.reactor;
 
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBufferPool;
 import com.github.codexwr.springbootrequestlogging.configuration.IgnoreLoggingPath;
+import com.github.codexwr.springbootrequestlogging.configuration.LogExecutor;
 import com.github.codexwr.springbootrequestlogging.configuration.LogPrinter;
 import com.github.codexwr.springbootrequestlogging.configuration.LoggingFilterProperties;
+import com.github.codexwr.springbootrequestlogging.configuration.RoutePolicyResolver;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -15,7 +18,8 @@ import org.springframework.context.annotation.Bean;
 class ReactiveLoggingFilterAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
-    LoggingFilter reactiveLoggingFilter(LogPrinter logPrinter, IgnoreLoggingPath ignoreLoggingPath, LoggingFilterProperties properties) {
-        return new DefaultReactiveLoggingFilter(logPrinter, ignoreLoggingPath, properties.isIncludeRequestBody(), properties.isIncludeResponseBody(), properties.getFilterOrder());
+    LoggingFilter reactiveLoggingFilter(LogPrinter logPrinter, IgnoreLoggingPath ignoreLoggingPath, RoutePolicyResolver routePolicyResolver, CaptureBufferPool captureBufferPool, LogExecutor logExecutor, LoggingFilterProperties properties) {
+        return new DefaultReactiveLoggingFilter(logPrinter, ignoreLoggingPath, routePolicyResolver, captureBufferPool, logExecutor, properties.isIncludeRequestBody(), properties.isIncludeResponseBody(),
+                properties.getReactiveRequestBodyCapture() == LoggingFilterProperties.RequestBodyCaptureMode.ON_READ, properties.getReactiveReadAheadMaxSize().toBytes(), properties.getFilterOrder());
     }
 }
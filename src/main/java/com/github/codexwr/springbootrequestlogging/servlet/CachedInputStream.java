@@ -1,41 +1,198 @@
 package com.github.codexwr.springbootrequestlogging.servlet;
 
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBuffer;
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBufferPool;
+import com.github.codexwr.springbootrequestlogging.configuration.LogBody;
 import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Hands the request body to the application as it is read from the servlet stream,
+ * and keeps a copy of the first bytes for the log.
+ * <p>
+ * The listener is called once the body is read to its end, whoever reads it.
+ * <p>
+ * Non-blocking reads are left to the container: the {@link ReadListener} of the application is registered
+ * on the servlet stream, and the bytes are copied as the application reads them in its callbacks.
+ * The body is consumed when the container signals all data read, or an error.
+ */
 class CachedInputStream extends ServletInputStream {
-    private final ByteArrayInputStream buffer;
+    private static final Logger log = LoggerFactory.getLogger(CachedInputStream.class);
+    private static final int DRAIN_BUFFER_SIZE = 8192;
 
-    public CachedInputStream(byte[] data) {
-        this.buffer = new ByteArrayInputStream(data);
+    private final CaptureBuffer cachedBuffer;
+    private final ServletInputStream inputStream;
+    // negative if unlimited
+    private final long maxCaptureSize;
+    // negative if unknown
+    private final long contentLength;
+    private final Runnable consumedListener;
+    private long readSize = 0;
+    private final AtomicBoolean consumed = new AtomicBoolean();
+    // the end of the stream was read, the read size is the length of the body
+    private volatile boolean ended = false;
+    // a ReadListener is set, blocking reads are not allowed
+    private volatile boolean nonBlocking = false;
+
+    /**
+     * @param maxCaptureSize   the copy stops at this size, negative if unlimited
+     * @param contentLength    length of the body, negative if unknown
+     * @param bufferPool       pool of the capture buffer
+     * @param consumedListener called once the body is read to its end
+     */
+    public CachedInputStream(ServletInputStream inputStream, long maxCaptureSize, long contentLength, CaptureBufferPool bufferPool, Runnable consumedListener) {
+        this.inputStream = inputStream;
+        this.cachedBuffer = bufferPool.newBuffer();
+        this.maxCaptureSize = maxCaptureSize;
+        this.contentLength = contentLength;
+        this.consumedListener = consumedListener;
     }
 
     @Override
     public boolean isFinished() {
-        return buffer.available() == 0;
+        return inputStream.isFinished();
     }
 
     @Override
     public boolean isReady() {
-        return true;
+        return inputStream.isReady();
     }
 
     @Override
-    public void close() throws IOException {
-        buffer.close();
-        super.close();
+    public void setReadListener(ReadListener listener) {
+        nonBlocking = true;
+        inputStream.setReadListener(new CapturingReadListener(listener));
     }
 
     @Override
-    public void setReadListener(ReadListener listener) {
-        throw new UnsupportedOperationException("Not supported yet.");
+    public int available() throws IOException {
+        return inputStream.available();
     }
 
     @Override
-    public int read() {
-        return buffer.read();
+    public int read() throws IOException {
+        int b = inputStream.read();
+        if (b < 0) {
+            ended = true;
+            onConsumed();
+            return b;
+        }
+
+        if (capturableSize(1) > 0) cachedBuffer.write(b);
+        onRead(1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = inputStream.read(b, off, len);
+        if (n < 0) {
+            ended = true;
+            onConsumed();
+            return n;
+        }
+
+        int capture = capturableSize(n);
+        if (capture > 0) cachedBuffer.write(b, off, capture);
+        onRead(n);
+        return n;
+    }
+
+    private int capturableSize(int len) {
+        if (maxCaptureSize < 0) return len;
+
+        return (int) Math.max(0, Math.min(len, maxCaptureSize - readSize));
+    }
+
+    private void onRead(int n) {
+        readSize += n;
+
+        // a parser stops at the end of the document, and may never ask for the end of the stream
+        if (contentLength >= 0 && readSize >= contentLength) onConsumed();
+    }
+
+    private void onConsumed() {
+        if (consumed.compareAndSet(false, true)) consumedListener.run();
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+        super.close();
+    }
+
+    /**
+     * Reads what the application left of the body, up to the capture size, so it can be logged.
+     * The rest is not read: it is logged as truncated, with the content length if it is known.
+     * Without one, a byte past the capture size is read to know whether the body goes on.
+     */
+    private void drain() {
+        var buffer = new byte[DRAIN_BUFFER_SIZE];
+        try {
+            int n = 0;
+            int len;
+            while (!consumed.get() && n >= 0 && (len = capturableSize(buffer.length)) > 0) n = read(buffer, 0, len);
+            if (!consumed.get() && n >= 0 && contentLength < 0) read();
+        } catch (IOException e) {
+            log.trace("Failed to read the rest of the request body", e);
+            onConsumed();
+        }
+    }
+
+    /**
+     * A body read without blocking is not drained, what the application left is logged as truncated.
+     *
+     * @return the captured bytes, truncated if the body is longer than the capture size, or was not read to its end.
+     * The whole length is unknown if the body was not read to its end and has no content length.
+     */
+    public LogBody getCachedLogBody(Charset charset) {
+        if (!nonBlocking && !consumed.get()) drain();
+
+        return cachedBuffer.toLogBody(charset, getOriginalLength());
+    }
+
+    private long getOriginalLength() {
+        if (contentLength >= 0) return Math.max(readSize, contentLength);
+
+        return ended ? readSize : LogBody.UNKNOWN_LENGTH;
+    }
+
+    /**
+     * Gives the capture buffer back to its pool, after the body is logged.
+     */
+    public void release() {
+        cachedBuffer.release();
+    }
+
+    private class CapturingReadListener implements ReadListener {
+        private final ReadListener delegate;
+
+        private CapturingReadListener(ReadListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onDataAvailable() throws IOException {
+            delegate.onDataAvailable();
+        }
+
+        @Override
+        public void onAllDataRead() throws IOException {
+            ended = true;
+            onConsumed();
+            delegate.onAllDataRead();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            onConsumed();
+            delegate.onError(t);
+        }
     }
 }
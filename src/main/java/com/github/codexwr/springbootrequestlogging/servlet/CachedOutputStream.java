@@ -1,17 +1,35 @@
 package com.github.codexwr.springbootrequestlogging.servlet;
 
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBuffer;
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBufferPool;
+import com.github.codexwr.springbootrequestlogging.configuration.LogBody;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.WriteListener;
-import org.springframework.util.FastByteArrayOutputStream;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 
+/**
+ * Forwards everything written to the servlet stream, and keeps a copy of the first bytes for the log.
+ */
 class CachedOutputStream extends ServletOutputStream {
-    private final FastByteArrayOutputStream cachedBuffer = new FastByteArrayOutputStream(1024);
+    private final CaptureBuffer cachedBuffer;
     private final ServletOutputStream outputStream;
+    // negative if unlimited
+    private final long maxCaptureSize;
+    private long writtenSize = 0;
 
     public CachedOutputStream(ServletOutputStream outputStream) {
+        this(outputStream, -1, CaptureBufferPool.unpooled());
+    }
+
+    /**
+     * @param maxCaptureSize the copy stops at this size, negative if unlimited
+     */
+    public CachedOutputStream(ServletOutputStream outputStream, long maxCaptureSize, CaptureBufferPool bufferPool) {
         this.outputStream = outputStream;
+        this.maxCaptureSize = maxCaptureSize;
+        this.cachedBuffer = bufferPool.newBuffer();
     }
 
     @Override
@@ -27,18 +45,47 @@ class CachedOutputStream extends ServletOutputStream {
     @Override
     public void write(int b) throws IOException {
         outputStream.write(b);
-        cachedBuffer.write(b);
+        if (capturableSize(1) > 0) cachedBuffer.write(b);
+        writtenSize++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        outputStream.write(b, off, len);
+        int capture = capturableSize(len);
+        if (capture > 0) cachedBuffer.write(b, off, capture);
+        writtenSize += len;
+    }
+
+    private int capturableSize(int len) {
+        if (maxCaptureSize < 0) return len;
+
+        return (int) Math.max(0, Math.min(len, maxCaptureSize - writtenSize));
+    }
+
+    @Override
+    public void flush() throws IOException {
+        outputStream.flush();
     }
 
     @Override
     public void close() throws IOException {
         outputStream.close();
-        cachedBuffer.close();
 
         super.close();
     }
 
-    public byte[] getCachedBuffer() {
-        return cachedBuffer.toByteArray();
+    /**
+     * @return the captured bytes, not a copy, truncated if more was written than the capture size
+     */
+    public LogBody getCachedLogBody(Charset charset) {
+        return cachedBuffer.toLogBody(charset, writtenSize);
+    }
+
+    /**
+     * Gives the capture buffer back to its pool, after the body is logged. Later writes are only forwarded.
+     */
+    public void release() {
+        cachedBuffer.release();
     }
 }
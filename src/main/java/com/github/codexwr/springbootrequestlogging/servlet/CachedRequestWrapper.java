@@ -1,33 +1,51 @@
 package com.github.codexwr.springbootrequestlogging.servlet;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBufferPool;
+import com.github.codexwr.springbootrequestlogging.configuration.LogBody;
+import com.github.codexwr.springbootrequestlogging.configuration.RoutePolicy;
 import jakarta.annotation.Nullable;
+import jakarta.servlet.ServletException;
 import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.Part;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.MediaType;
-import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.web.context.support.WebApplicationContextUtils;
 import org.springframework.web.multipart.MultipartHttpServletRequest;
-import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.util.WebUtils;
 
 import java.io.*;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 class CachedRequestWrapper extends HttpServletRequestWrapper implements LoggingWrapper {
     private static final Logger log = LoggerFactory.getLogger(CachedRequestWrapper.class);
-    private static final ObjectMapper objectMapper = new ObjectMapper();
 
-    private volatile byte[] cachedData;
+    private volatile CachedInputStream cachedInputStream;
+    // not a monitor, a virtual thread waiting for it does not pin its carrier
+    private final ReentrantLock initLock = new ReentrantLock();
+    private final long maxCaptureSize;
+    private final CaptureBufferPool bufferPool;
+    private final ContentTypes.Matcher jsonMatcher = new ContentTypes.Matcher(MediaType.APPLICATION_JSON);
+    private volatile Runnable bodyConsumedListener = () -> {
+    };
 
     public CachedRequestWrapper(HttpServletRequest request) {
+        this(request, RoutePolicy.UNLIMITED_CAPTURE_SIZE, CaptureBufferPool.unpooled());
+    }
+
+    /**
+     * @param maxCaptureSize bytes of the body kept for the log, negative if unlimited.
+     *                       The application still reads the whole body.
+     */
+    public CachedRequestWrapper(HttpServletRequest request, long maxCaptureSize, CaptureBufferPool bufferPool) {
         super(request);
+        this.maxCaptureSize = maxCaptureSize;
+        this.bufferPool = bufferPool;
     }
 
     @Override
@@ -38,15 +56,21 @@ class CachedRequestWrapper extends HttpServletRequestWrapper implements LoggingW
         return getCachedInputStream();
     }
 
+    /**
+     * The body is copied while the application reads it, it is not read ahead.
+     */
     private CachedInputStream getCachedInputStream() throws IOException {
-        if (cachedData == null) {
-            synchronized (this) {
-                if (cachedData == null)
-                    cachedData = super.getInputStream().readAllBytes();
+        if (cachedInputStream == null) {
+            initLock.lock();
+            try {
+                if (cachedInputStream == null)
+                    cachedInputStream = new CachedInputStream(super.getInputStream(), maxCaptureSize, getContentLengthLong(), bufferPool, () -> bodyConsumedListener.run());
+            } finally {
+                initLock.unlock();
             }
         }
 
-        return new CachedInputStream(cachedData);
+        return cachedInputStream;
     }
 
     @Override
@@ -54,15 +78,30 @@ class CachedRequestWrapper extends HttpServletRequestWrapper implements LoggingW
         if (!isCachedBody())
             return super.getReader();
 
-        return new BufferedReader(new InputStreamReader(getInputStream()));
+        return new BufferedReader(new InputStreamReader(getInputStream(), getCharset(getCharacterEncoding())));
+    }
+
+    /**
+     * @return the body is captured while the application reads it, so it can only be logged after
+     */
+    public boolean isCapturedOnRead() {
+        return isCachedBody() && getContentLengthLong() != 0;
+    }
+
+    /**
+     * @param listener called once the body is read to its end, by the application or for the log
+     */
+    public void setBodyConsumedListener(Runnable listener) {
+        this.bodyConsumedListener = listener;
     }
 
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
     private boolean isCachedBody() {
-        return isCompatibleMediaType(MediaType.APPLICATION_JSON);
+        return jsonMatcher.isCompatibleWith(getContentType());
     }
 
-    private byte[] getInputContent() {
+    @Nullable
+    private MultiValueMap<String, String> getInputContent() {
         if (isCompatibleMediaType(MediaType.APPLICATION_FORM_URLENCODED)) {
             return getFormDataContent();
         }
@@ -74,73 +113,76 @@ class CachedRequestWrapper extends HttpServletRequestWrapper implements LoggingW
         return null;
     }
 
-    private byte[] getFormDataContent() {
-        var contents = CollectionUtils.<String, String>toMultiValueMap(new HashMap<>());
+    private MultiValueMap<String, String> getFormDataContent() {
+        var contents = new LinkedMultiValueMap<String, String>();
 
         getRequest()
                 .getParameterMap()
-                .forEach((key, value) -> contents.addAll(key, Arrays.stream(value).toList()));
+                .forEach((key, value) -> contents.addAll(key, Arrays.asList(value)));
 
-        return serializedMultiValueMap(contents);
+        return contents;
     }
 
-    private byte[] getMultipartContent() {
-        var ctx = WebApplicationContextUtils.getWebApplicationContext(getRequest().getServletContext());
-        if (ctx == null) {
-            log.trace("WebApplicationContext is null");
-            return null;
+    /**
+     * Only the names, filenames and sizes of the parts are logged, their contents are never read.
+     * A request already resolved by a multipart filter is reused, otherwise the parts are taken from the container,
+     * which parses the body once and keeps the parts for the dispatcher.
+     */
+    private MultiValueMap<String, String> getMultipartContent() {
+        var contents = new LinkedMultiValueMap<String, String>();
+
+        getRequest().getParameterMap()
+                .forEach((key, value) -> contents.addAll(key, Arrays.asList(value)));
+
+        var multipart = WebUtils.getNativeRequest(getRequest(), MultipartHttpServletRequest.class);
+        if (multipart != null && !multipart.getMultiFileMap().isEmpty()) {
+            multipart.getMultiFileMap().values().stream()
+                    .flatMap(Collection::stream)
+                    .forEach(file -> contents.add(file.getName(), formatFile(file.getOriginalFilename(), file.getSize())));
+            return contents;
         }
 
-        var multipartResolver = ctx.getBean(MultipartResolver.class);
-        var multipart = multipartResolver.resolveMultipart((HttpServletRequest) getRequest());
-        var contents = extractMultipartData(multipart);
-
-        return serializedMultiValueMap(contents);
-    }
-
-    private MultiValueMap<String, String> extractMultipartData(MultipartHttpServletRequest multipart) {
-        var contents = CollectionUtils.<String, String>toMultiValueMap(new HashMap<>());
-
-        multipart.getParameterMap()
-                .forEach((key, value) -> contents.addAll(key, Arrays.stream(value).toList()));
-
-        var files = multipart.getMultiFileMap().values().stream()
-                .flatMap(Collection::stream)
-                .toList();
-
-        files.forEach(file -> contents.add(file.getName(), file.getOriginalFilename()));
+        try {
+            for (Part part : ((HttpServletRequest) getRequest()).getParts()) {
+                if (part.getSubmittedFileName() != null)
+                    contents.add(part.getName(), formatFile(part.getSubmittedFileName(), part.getSize()));
+            }
+        } catch (IOException | ServletException | IllegalStateException e) {
+            log.trace("Failed to get multipart parts", e);
+        }
 
         return contents;
     }
 
-    @Nullable
-    private byte[] serializedMultiValueMap(MultiValueMap<String, String> multiValueMap) {
-        try {
-            return objectMapper.writeValueAsString(multiValueMap).getBytes(getCharacterEncoding());
-        } catch (JsonProcessingException | UnsupportedEncodingException e) {
-            log.trace("Failed to serialize MultiValueMap", e);
-            return null;
-        }
+    private static String formatFile(@Nullable String filename, long size) {
+        return filename + " (" + size + " bytes)";
     }
 
-    public byte[] getCachedContentBody() {
+    /**
+     * The cached bytes are handed over as they are, the mask decodes them only if it needs to.
+     * What the application did not read of the body is read first.
+     * Form and multipart parameters are handed over as they are, and formatted only when logged.
+     */
+    @Nullable
+    public LogBody getCachedLogBody() {
         try {
-            if (!isCachedBody())
-                return getInputContent();
-
-            try(InputStream is = getCachedInputStream()) {
-                return is.readAllBytes();
+            if (!isCachedBody()) {
+                var formData = getInputContent();
+                return formData != null ? LogBody.ofFormData(formData) : null;
             }
+
+            return getCachedInputStream().getCachedLogBody(getCharset(getCharacterEncoding()));
         } catch (Exception e) {
             log.trace("Failed to get cached request content body", e);
             return null;
         }
     }
 
-    public String getCachedContentString() {
-        var bodyBuffer = getCachedContentBody();
-        if (bodyBuffer == null) return null;
-
-        return new String(bodyBuffer, getCharset(getCharacterEncoding()));
+    /**
+     * Gives the capture buffer back to its pool, once the request is logged.
+     */
+    public void release() {
+        var inputStream = cachedInputStream;
+        if (inputStream != null) inputStream.release();
     }
 }
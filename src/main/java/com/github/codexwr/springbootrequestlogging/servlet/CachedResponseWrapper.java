@@ -1,22 +1,40 @@
 package com.github.codexwr.springbootrequestlogging.servlet;
 
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBufferPool;
+import com.github.codexwr.springbootrequestlogging.configuration.LogBody;
+import com.github.codexwr.springbootrequestlogging.configuration.RoutePolicy;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpServletResponseWrapper;
 import org.springframework.http.MediaType;
 
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.util.concurrent.locks.ReentrantLock;
 
 class CachedResponseWrapper extends HttpServletResponseWrapper implements LoggingWrapper {
     private volatile CachedOutputStream cachedOutputStream = null;
-    private volatile PrintWriterWrapper printWriterWrapper = null;
+    private volatile PrintWriter printWriter = null;
+    // not a monitor, a virtual thread waiting for it does not pin its carrier
+    private final ReentrantLock initLock = new ReentrantLock();
     private boolean outputStreamUsed = false;
     private boolean writerUsed = false;
+    private final long maxCaptureSize;
+    private final CaptureBufferPool bufferPool;
+    private final ContentTypes.Matcher jsonMatcher = new ContentTypes.Matcher(MediaType.APPLICATION_JSON);
 
     public CachedResponseWrapper(HttpServletResponse response) {
+        this(response, RoutePolicy.UNLIMITED_CAPTURE_SIZE, CaptureBufferPool.unpooled());
+    }
+
+    /**
+     * @param maxCaptureSize bytes of the body kept for the log, negative if unlimited
+     */
+    public CachedResponseWrapper(HttpServletResponse response, long maxCaptureSize, CaptureBufferPool bufferPool) {
         super(response);
+        this.maxCaptureSize = maxCaptureSize;
+        this.bufferPool = bufferPool;
     }
 
     @Override
@@ -33,9 +51,12 @@ class CachedResponseWrapper extends HttpServletResponseWrapper implements Loggin
 
     private CachedOutputStream getCachedOutputStream() throws IOException {
         if (cachedOutputStream == null) {
-            synchronized (this) {
+            initLock.lock();
+            try {
                 if (cachedOutputStream == null)
-                    cachedOutputStream = new CachedOutputStream(super.getOutputStream());
+                    cachedOutputStream = new CachedOutputStream(super.getOutputStream(), maxCaptureSize, bufferPool);
+            } finally {
+                initLock.unlock();
             }
         }
 
@@ -51,41 +72,49 @@ class CachedResponseWrapper extends HttpServletResponseWrapper implements Loggin
             throw new IllegalStateException("getOutputStream() has already been called.");
         }
         writerUsed = true;
-        return getPrintWriterWrapper();
+        return getPrintWriter();
     }
 
-    private PrintWriterWrapper getPrintWriterWrapper() throws IOException {
-        if (printWriterWrapper == null) {
-            synchronized (this) {
-                if (printWriterWrapper == null)
-                    printWriterWrapper = new PrintWriterWrapper(getCachedOutputStream());
+    /**
+     * A plain {@link PrintWriter}, which locks with a {@link java.util.concurrent.locks.Lock} on JDK 21,
+     * where a subclass would lock its monitor while writing to the servlet stream.
+     */
+    private PrintWriter getPrintWriter() throws IOException {
+        if (printWriter == null) {
+            initLock.lock();
+            try {
+                if (printWriter == null)
+                    printWriter = new PrintWriter(new OutputStreamWriter(getCachedOutputStream(), getCharset(getCharacterEncoding())));
+            } finally {
+                initLock.unlock();
             }
         }
 
-        return printWriterWrapper;
+        return printWriter;
     }
 
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
     private boolean isCachedBody() {
-        return isCompatibleMediaType(MediaType.APPLICATION_JSON);
+        return jsonMatcher.isCompatibleWith(getContentType());
     }
 
-    public byte[] getCachedContentBody() {
+    public LogBody getCachedLogBody() {
         if (!isCachedBody())
             return null;
 
         try (CachedOutputStream os = getCachedOutputStream()) {
-            return os.getCachedBuffer();
+            return os.getCachedLogBody(getCharset(getCharacterEncoding()));
         } catch (IOException e) {
             log.trace("Failed to get cached response content body", e);
             return null;
         }
     }
 
-    public String getCachedContentString() {
-        var bodyBuffer = getCachedContentBody();
-        if (bodyBuffer == null) return null;
-
-        return new String(bodyBuffer, getCharset(getCharacterEncoding()));
+    /**
+     * Gives the capture buffer back to its pool, once the response is logged.
+     */
+    public void release() {
+        var outputStream = cachedOutputStream;
+        if (outputStream != null) outputStream.release();
     }
 }
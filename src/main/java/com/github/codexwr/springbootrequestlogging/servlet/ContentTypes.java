@@ -0,0 +1,94 @@
+package com.github.codexwr.springbootrequestlogging.servlet;
+
+import jakarta.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.util.ConcurrentLruCache;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Parsed content types and charsets, shared by the requests.
+ * <p>
+ * An application only sends a handful of content type strings, so each is parsed once,
+ * and an invalid one is not parsed again(and its exception not thrown again) on every call.
+ */
+final class ContentTypes {
+    private static final Logger log = LoggerFactory.getLogger(ContentTypes.class);
+    private static final int CACHE_SIZE = 64;
+
+    private static final ConcurrentLruCache<String, Optional<MediaType>> mediaTypes = new ConcurrentLruCache<>(CACHE_SIZE, ContentTypes::doParseMediaType);
+    private static final ConcurrentLruCache<String, Optional<Charset>> charsets = new ConcurrentLruCache<>(CACHE_SIZE, ContentTypes::doParseCharset);
+
+    private ContentTypes() {
+    }
+
+    /**
+     * @return {@code null} if the content type is not set or invalid
+     */
+    @Nullable
+    static MediaType parseMediaType(@Nullable String contentType) {
+        if (contentType == null) return null;
+
+        return mediaTypes.get(contentType).orElse(null);
+    }
+
+    /**
+     * @return UTF-8 if the charset is not set, invalid or not supported
+     */
+    static Charset parseCharset(@Nullable String charset) {
+        if (charset == null) return StandardCharsets.UTF_8;
+
+        return charsets.get(charset).orElse(StandardCharsets.UTF_8);
+    }
+
+    private static Optional<MediaType> doParseMediaType(String contentType) {
+        try {
+            return Optional.of(MediaType.valueOf(contentType));
+        } catch (Exception e) {
+            log.trace("contentType parsing error.", e);
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<Charset> doParseCharset(String charset) {
+        try {
+            return Optional.of(Charset.forName(charset));
+        } catch (Exception e) {
+            log.trace("charset parsing error.", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Whether the content type of a request or response is compatible with a media type, decided once per content type.
+     * A response may still change its content type, the decision is made again then.
+     */
+    static final class Matcher {
+        private final MediaType mediaType;
+        @Nullable
+        private volatile Decision decision;
+
+        Matcher(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        boolean isCompatibleWith(@Nullable String contentType) {
+            var decision = this.decision;
+            if (decision == null || !Objects.equals(decision.contentType(), contentType)) {
+                var parsed = parseMediaType(contentType);
+                decision = new Decision(contentType, parsed != null && parsed.isCompatibleWith(mediaType));
+                this.decision = decision;
+            }
+
+            return decision.compatible();
+        }
+
+        private record Decision(@Nullable String contentType, boolean compatible) {
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.github.codexwr.springbootrequestlogging.servlet;
 
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBufferPool;
 import com.github.codexwr.springbootrequestlogging.configuration.IgnoreLoggingPath;
 import com.github.codexwr.springbootrequestlogging.configuration.LogPrinter;
+import com.github.codexwr.springbootrequestlogging.configuration.RoutePolicy;
+import com.github.codexwr.springbootrequestlogging.configuration.RoutePolicyResolver;
 import jakarta.annotation.Nonnull;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -20,6 +23,8 @@ import java.io.IOException;
 class DefaultServletLoggingFilter extends OncePerRequestFilter implements LoggingFilter {
     private final LogPrinter logPrinter;
     private final IgnoreLoggingPath ignoreLoggingPath;
+    private final RoutePolicyResolver routePolicyResolver;
+    private final CaptureBufferPool captureBufferPool;
     private final boolean enableLoggingRequestBody;
     private final boolean enableLoggingResponseBody;
     private final int order;
@@ -33,7 +38,7 @@ class DefaultServletLoggingFilter extends OncePerRequestFilter implements Loggin
     protected void doFilterInternal(@Nonnull HttpServletRequest request, @Nonnull HttpServletResponse response, @Nonnull FilterChain filterChain) throws ServletException, IOException {
         final var isFirstRequest = !isAsyncStarted(request);
 
-        if (!isFirstRequest || isIgnoreLogging(request)) {
+        if (!isFirstRequest || !logPrinter.isEnabled() || isIgnoreLogging(request)) {
             next(request, response, filterChain);
             return;
         }
@@ -41,7 +46,7 @@ class DefaultServletLoggingFilter extends OncePerRequestFilter implements Loggin
         var requestToUse = ensureLoggingRequest(request);
         var responseToUse = ensureLoggingResponse(response, requestToUse);
 
-        requestToUse.logPrint();
+        requestToUse.logPrintWhenBodyConsumed();
         next(requestToUse, responseToUse, filterChain);
     }
 
@@ -58,28 +63,43 @@ class DefaultServletLoggingFilter extends OncePerRequestFilter implements Loggin
     }
 
     private void completeWithResponse(HttpServletRequest request, HttpServletResponse response, HttpStatusCode errorCode) {
-        if (isAsyncStarted(request)) return;
-
         var responseWrapper = WebUtils.getNativeResponse(response, LoggingResponseWrapper.class);
         if (responseWrapper == null) return;
 
+        // the response of an async request is written after this dispatch, it is logged when the request completes
+        if (request.isAsyncStarted()) {
+            request.getAsyncContext().addListener(new ResponseLoggingAsyncListener(responseWrapper));
+            return;
+        }
+
         responseWrapper.logPrint(errorCode);
     }
 
 
     private boolean isIgnoreLogging(HttpServletRequest request) {
-        return ignoreLoggingPath.isMatch(HttpMethod.valueOf(request.getMethod()), request.getRequestURI());
+        return ignoreLoggingPath.isMatch(attachRoutePolicy(request));
+    }
+
+    private RoutePolicy attachRoutePolicy(HttpServletRequest request) {
+        var policy = routePolicyResolver.resolve(HttpMethod.valueOf(request.getMethod()), request.getRequestURI());
+        request.setAttribute(RoutePolicy.ATTRIBUTE, policy);
+
+        return policy;
     }
 
     private LoggingRequestWrapper ensureLoggingRequest(HttpServletRequest request) {
         if (request instanceof LoggingRequestWrapper) return (LoggingRequestWrapper) request;
 
-        return new LoggingRequestWrapper(enableLoggingRequestBody ? new CachedRequestWrapper(request) : request, logPrinter);
+        return new LoggingRequestWrapper(enableLoggingRequestBody ? new CachedRequestWrapper(request, maxCaptureSize(request), captureBufferPool) : request, logPrinter);
     }
 
     private LoggingResponseWrapper ensureLoggingResponse(HttpServletResponse response, LoggingRequestWrapper request) {
         if (response instanceof LoggingResponseWrapper) return (LoggingResponseWrapper) response;
 
-        return new LoggingResponseWrapper(enableLoggingResponseBody ? new CachedResponseWrapper(response) : response, request, logPrinter);
+        return new LoggingResponseWrapper(enableLoggingResponseBody ? new CachedResponseWrapper(response, maxCaptureSize(request), captureBufferPool) : response, request, logPrinter);
+    }
+
+    private static long maxCaptureSize(HttpServletRequest request) {
+        return request.getAttribute(RoutePolicy.ATTRIBUTE) instanceof RoutePolicy policy ? policy.maxBodyCaptureSize() : RoutePolicy.UNLIMITED_CAPTURE_SIZE;
     }
 }
@@ -1,5 +1,6 @@
 package com.github.codexwr.springbootrequestlogging.servlet;
 
+import com.github.codexwr.springbootrequestlogging.configuration.LogBody;
 import com.github.codexwr.springbootrequestlogging.configuration.LogPrinter;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
@@ -7,31 +8,64 @@ import lombok.Getter;
 import org.springframework.http.HttpMethod;
 import org.springframework.web.util.WebUtils;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 class LoggingRequestWrapper extends HttpServletRequestWrapper implements LoggingWrapper {
     private final LogPrinter logPrinter;
 
     @Getter
-    private Long executionTime = System.currentTimeMillis();
+    private final Long executionTime = System.currentTimeMillis();
+
+    private final AtomicBoolean printed = new AtomicBoolean(false);
+
+    @Getter
+    private final Map<String, Object> logAttributes = new ConcurrentHashMap<>();
 
     public LoggingRequestWrapper(HttpServletRequest request, LogPrinter logPrinter) {
         super(request);
         this.logPrinter = logPrinter;
     }
 
+    /**
+     * Prints the enter line once. A body captured while the application reads it is only known after,
+     * so the line waits for the body to be consumed, or for the response at the latest.
+     */
+    public void logPrintWhenBodyConsumed() {
+        var request = WebUtils.getNativeRequest(getRequest(), CachedRequestWrapper.class);
+        if (request == null || !request.isCapturedOnRead()) {
+            logPrint();
+            return;
+        }
+
+        request.setBodyConsumedListener(this::logPrint);
+    }
+
+    /**
+     * Prints the enter line, if it is not printed yet.
+     */
     public void logPrint() {
-        executionTime = System.currentTimeMillis();
+        if (!printed.compareAndSet(false, true)) return;
 
-        logPrinter.request(getLogItem(this, null, null));
+        if (logPrinter.isEnabled()) logPrinter.request(getLogItem(logPrinter, this, null, null));
     }
 
     public HttpMethod getHttpMethod() {
         return HttpMethod.valueOf(getMethod());
     }
 
-    public String getRequestBody() {
+    public LogBody getRequestBody() {
         var request = WebUtils.getNativeRequest(getRequest(), CachedRequestWrapper.class);
 
-        return request != null ? request.getCachedContentString() : null;
+        return request != null ? request.getCachedLogBody() : null;
     }
 
+    /**
+     * Gives the capture buffer of the body back to its pool, once the request is logged.
+     */
+    public void releaseRequestBody() {
+        var request = WebUtils.getNativeRequest(getRequest(), CachedRequestWrapper.class);
+        if (request != null) request.release();
+    }
 }
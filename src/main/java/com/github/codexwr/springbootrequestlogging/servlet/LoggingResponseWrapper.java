@@ -1,16 +1,21 @@
 package com.github.codexwr.springbootrequestlogging.servlet;
 
+import com.github.codexwr.springbootrequestlogging.configuration.LogBody;
 import com.github.codexwr.springbootrequestlogging.configuration.LogPrinter;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpServletResponseWrapper;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.web.util.WebUtils;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 class LoggingResponseWrapper extends HttpServletResponseWrapper implements LoggingWrapper {
 
     private final LoggingRequestWrapper loggingRequestWrapper;
     private final LogPrinter logPrinter;
 
+    private final AtomicBoolean printed = new AtomicBoolean(false);
+
     public LoggingResponseWrapper(HttpServletResponse response, LoggingRequestWrapper loggingRequestWrapper, LogPrinter logPrinter) {
         super(response);
 
@@ -18,21 +23,41 @@ class LoggingResponseWrapper extends HttpServletResponseWrapper implements Loggi
         this.logPrinter = logPrinter;
     }
 
+    /**
+     * Prints the exit line once, when the first dispatch returns, or when an async request completes.
+     */
     public void logPrint(HttpStatusCode errorCode) {
-        logPrinter.response(
-                executionTime(),
-                errorCode != null ? errorCode : HttpStatusCode.valueOf(getStatus()),
-                getLogItem(loggingRequestWrapper, this, null)
-        );
+        if (!printed.compareAndSet(false, true)) return;
+
+        // the enter line comes first, if it is still waiting for the request body
+        loggingRequestWrapper.logPrint();
+
+        try {
+            if (logPrinter.isEnabled()) {
+                logPrinter.response(
+                        executionTime(),
+                        errorCode != null ? errorCode : HttpStatusCode.valueOf(getStatus()),
+                        getLogItem(logPrinter, loggingRequestWrapper, this, null)
+                );
+            }
+        } finally {
+            releaseResponseBody();
+            loggingRequestWrapper.releaseRequestBody();
+        }
+    }
+
+    private void releaseResponseBody() {
+        var response = WebUtils.getNativeResponse(getResponse(), CachedResponseWrapper.class);
+        if (response != null) response.release();
     }
 
     private Long executionTime() {
         return System.currentTimeMillis() - loggingRequestWrapper.getExecutionTime();
     }
 
-    public String getResponseBody() {
+    public LogBody getResponseBody() {
         var response = WebUtils.getNativeResponse(getResponse(), CachedResponseWrapper.class);
 
-        return response != null ? response.getCachedContentString() : null;
+        return response != null ? response.getCachedLogBody() : null;
     }
 }
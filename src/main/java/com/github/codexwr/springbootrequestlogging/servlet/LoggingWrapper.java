@@ -1,6 +1,8 @@
 package com.github.codexwr.springbootrequestlogging.servlet;
 
 import com.github.codexwr.springbootrequestlogging.configuration.LogPrinter;
+import com.github.codexwr.springbootrequestlogging.configuration.LoggingFilterProperties.DefaultLogItemType;
+import com.github.codexwr.springbootrequestlogging.configuration.RoutePolicy;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import org.slf4j.Logger;
@@ -9,7 +11,6 @@ import org.springframework.http.MediaType;
 import org.springframework.http.server.ServletServerHttpRequest;
 
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 interface LoggingWrapper {
@@ -21,40 +22,36 @@ interface LoggingWrapper {
     }
 
     default MediaType getContentType(String contentType) {
-        try {
-            return MediaType.valueOf(contentType);
-        } catch (Exception e) {
-            log.trace("contentType parsing error.", e);
-            return null;
-        }
+        return ContentTypes.parseMediaType(contentType);
     }
 
     default Charset getCharset(String encodeCharset) {
-        Charset charset = null;
-        try {
-            charset = Charset.forName(encodeCharset);
-        } catch (Exception e) {
-            log.trace("charset parsing error.", e);
-        }
-
-        return charset != null ? charset : StandardCharsets.UTF_8;
+        return ContentTypes.parseCharset(encodeCharset);
     }
 
     String getContentType();
 
-    default LogPrinter.LogItem getLogItem(@Nonnull LoggingRequestWrapper request, @Nullable LoggingResponseWrapper response, @Nullable Map<String, String> extraInfo) {
+    /**
+     * Only the items the printer reads are gathered, the others are left {@code null}.
+     */
+    default LogPrinter.LogItem getLogItem(@Nonnull LogPrinter logPrinter, @Nonnull LoggingRequestWrapper request, @Nullable LoggingResponseWrapper response, @Nullable Map<String, String> extraInfo) {
+        var session = logPrinter.includes(DefaultLogItemType.CLIENT_INFO) ? request.getSession(false) : null;
+        var includesResponseBody = response != null && logPrinter.includes(DefaultLogItemType.RESPONSE_BODY);
+
         return new LogPrinter.LogItem(
                 request.getHttpMethod(),
                 request.getRequestURI(),
                 request.getQueryString(),
                 request.getRemoteAddr(),
-                request.getSession(false) != null ? request.getSession(false).getId() : null,
-                new ServletServerHttpRequest(request).getHeaders(),
+                session != null ? session.getId() : null,
+                logPrinter.includes(DefaultLogItemType.HEADER) ? new ServletServerHttpRequest(request).getHeaders() : null,
                 getContentType(request.getContentType()),
-                request.getRequestBody(),
-                response != null ? getContentType(response.getContentType()) : null,
-                response != null ? response.getResponseBody() : null,
-                extraInfo
+                logPrinter.includes(DefaultLogItemType.REQUEST_BODY) ? request.getRequestBody() : null,
+                includesResponseBody ? getContentType(response.getContentType()) : null,
+                includesResponseBody ? response.getResponseBody() : null,
+                extraInfo,
+                request.getAttribute(RoutePolicy.ATTRIBUTE) instanceof RoutePolicy policy ? policy : null,
+                request.getLogAttributes()
         );
     }
 }
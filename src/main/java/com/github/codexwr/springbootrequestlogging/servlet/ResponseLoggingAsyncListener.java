@@ -0,0 +1,45 @@
+package com.github.codexwr.springbootrequestlogging.servlet;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * Logs the response of an async request once it completes, instead of when the first dispatch returns.
+ * <p>
+ * A timeout or an error is only remembered, the container completes the request after it, with the status
+ * the application may still set. The execution time runs from the start of the request to the completion.
+ */
+class ResponseLoggingAsyncListener implements AsyncListener {
+    private final LoggingResponseWrapper responseWrapper;
+    private volatile HttpStatusCode errorCode;
+
+    public ResponseLoggingAsyncListener(LoggingResponseWrapper responseWrapper) {
+        this.responseWrapper = responseWrapper;
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        var errorCode = this.errorCode;
+        var status = HttpStatusCode.valueOf(responseWrapper.getStatus());
+
+        responseWrapper.logPrint(errorCode != null && !status.isError() ? errorCode : null);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        errorCode = HttpStatus.SERVICE_UNAVAILABLE;
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        errorCode = HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        // async started again on a later dispatch, the listeners of the previous cycle are dropped by the container
+        event.getAsyncContext().addListener(this);
+    }
+}
@@ -1,8 +1,10 @@
 package com.github.codexwr.springbootrequestlogging.servlet;
 
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBufferPool;
 import com.github.codexwr.springbootrequestlogging.configuration.IgnoreLoggingPath;
 import com.github.codexwr.springbootrequestlogging.configuration.LogPrinter;
 import com.github.codexwr.springbootrequestlogging.configuration.LoggingFilterProperties;
+import com.github.codexwr.springbootrequestlogging.configuration.RoutePolicyResolver;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -15,7 +17,7 @@ import org.springframework.context.annotation.Bean;
 class ServletLoggingFilterAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
-    LoggingFilter servletLoggingFilter(LogPrinter logPrinter, IgnoreLoggingPath ignoreLoggingPath, LoggingFilterProperties properties) {
-        return new DefaultServletLoggingFilter(logPrinter, ignoreLoggingPath, properties.isIncludeRequestBody(), properties.isIncludeResponseBody(), properties.getFilterOrder());
+    LoggingFilter servletLoggingFilter(LogPrinter logPrinter, IgnoreLoggingPath ignoreLoggingPath, RoutePolicyResolver routePolicyResolver, CaptureBufferPool captureBufferPool, LoggingFilterProperties properties) {
+        return new DefaultServletLoggingFilter(logPrinter, ignoreLoggingPath, routePolicyResolver, captureBufferPool, properties.isIncludeRequestBody(), properties.isIncludeResponseBody(), properties.getFilterOrder());
     }
 }
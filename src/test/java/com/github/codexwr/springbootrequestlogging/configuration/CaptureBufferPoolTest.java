@@ -0,0 +1,122 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptureBufferPoolTest {
+    public static class CaptureBufferPoolSteps {
+        public static CaptureBuffer write(CaptureBufferPool pool, String text) {
+            var buffer = pool.newBuffer();
+            var bytes = text.getBytes(StandardCharsets.UTF_8);
+            buffer.write(bytes, 0, bytes.length);
+            return buffer;
+        }
+    }
+
+    @Test
+    @DisplayName("반환된 버퍼 재사용")
+    void reuse() {
+        // given
+        var pool = new CaptureBufferPool(64 * 1024, 1024 * 1024);
+        var first = CaptureBufferPoolSteps.write(pool, "{\"name\":\"name\"}");
+        var firstArray = first.toLogBody(StandardCharsets.UTF_8, first.size()).array();
+        first.release();
+
+        // when
+        var second = CaptureBufferPoolSteps.write(pool, "{\"memo\":\"memo\"}");
+
+        // then
+        assertSame(firstArray, second.toLogBody(StandardCharsets.UTF_8, second.size()).array());
+        assertEquals("{\"memo\":\"memo\"}", second.toLogBody(StandardCharsets.UTF_8, second.size()).toString());
+        assertEquals(1, pool.getHitCount());
+        assertEquals(0, pool.getRetainedSize());
+    }
+
+    @Test
+    @DisplayName("버퍼 증가 - 크기 단위로 복사")
+    void grow() {
+        // given
+        var pool = new CaptureBufferPool(64 * 1024, 1024 * 1024);
+        var text = "0123456789".repeat(300);
+
+        // when
+        var buffer = CaptureBufferPoolSteps.write(pool, text);
+        buffer.write('!');
+        var body = buffer.toLogBody(StandardCharsets.UTF_8, buffer.size());
+
+        // then
+        assertEquals(text + "!", body.toString());
+        assertEquals(4096, body.array().length);
+        buffer.release();
+        assertEquals(4096, pool.getRetainedSize());
+    }
+
+    @Test
+    @DisplayName("최대 보관 크기 초과시 버림")
+    void maxRetainedSize() {
+        // given
+        var pool = new CaptureBufferPool(64 * 1024, 1024);
+        var first = CaptureBufferPoolSteps.write(pool, "first");
+        var second = CaptureBufferPoolSteps.write(pool, "second");
+        var large = CaptureBufferPoolSteps.write(pool, "0".repeat(128 * 1024));
+
+        // when
+        first.release();
+        second.release();
+        large.release();
+
+        // then
+        assertEquals(1024, pool.getRetainedSize());
+    }
+
+    @Test
+    @DisplayName("반환 후 쓰기 무시")
+    void writeAfterRelease() {
+        // given
+        var buffer = CaptureBufferPoolSteps.write(CaptureBufferPool.unpooled(), "body");
+
+        // when
+        buffer.release();
+        buffer.write('!');
+
+        // then
+        assertEquals(0, buffer.size());
+        assertFalse(buffer.toLogBody(StandardCharsets.UTF_8, 0).hasText());
+        assertEquals(0, CaptureBufferPool.unpooled().getRetainedSize());
+    }
+
+    @Test
+    @DisplayName("임계 크기 초과시 임시 파일로 이동")
+    void spill(@TempDir Path spillDirectory) throws IOException {
+        // given
+        var pool = new CaptureBufferPool(64 * 1024, 1024 * 1024, 4096, spillDirectory);
+        var json = "{\"items\":[" + "\"0123456789\",".repeat(500) + "\"end\"]}";
+
+        // when
+        var buffer = CaptureBufferPoolSteps.write(pool, json);
+        var body = buffer.toLogBody(StandardCharsets.UTF_8, buffer.size());
+
+        // then
+        assertTrue(buffer.isSpilled());
+        assertNull(body.array());
+        assertEquals(json, body.toString());
+        assertEquals(json.length(), body.limit(json.length() + 1).toString().length());
+        assertEquals(1, pool.getSpillCount());
+        try (var files = Files.list(spillDirectory)) {
+            assertEquals(1, files.count());
+        }
+
+        buffer.release();
+        try (var files = Files.list(spillDirectory)) {
+            assertEquals(0, files.count());
+        }
+    }
+}
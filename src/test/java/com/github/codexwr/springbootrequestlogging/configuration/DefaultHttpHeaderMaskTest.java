@@ -8,6 +8,7 @@ import org.springframework.http.HttpMethod;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class DefaultHttpHeaderMaskTest {
     @Test
@@ -151,6 +152,30 @@ class DefaultHttpHeaderMaskTest {
                 .hasEntrySatisfying("Authorization", v -> Assertions.assertThat(v).containsOnly(HttpHeaderMaskSteps.maskOverlay));
     }
 
+    @Test
+    @DisplayName("경로로 마스크 - 공유된 정책 리졸버로 조회")
+    void maskByPathThroughResolver() {
+        // given
+        var properties = new LoggingFilterProperties();
+        properties.setPathHeaderMask(HttpHeaderMaskSteps.pathMaskKeys);
+        var resolved = new AtomicInteger();
+        var resolver = new DefaultRoutePolicyResolver(properties);
+        var headerMask = new DefaultHttpHeaderMask(HttpHeaderMaskSteps.maskOverlay, (method, path) -> {
+            resolved.incrementAndGet();
+            return resolver.resolve(method, path);
+        });
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("Authorization", "bearer token");
+
+        // when
+        var maskHeaders = headerMask.getMaskingHeaders(HttpMethod.POST, "/auth/login/user", headers);
+
+        // then
+        Assertions.assertThat(resolved).hasValue(1);
+        Assertions.assertThat(maskHeaders)
+                .hasEntrySatisfying("Authorization", v -> Assertions.assertThat(v).containsOnly(HttpHeaderMaskSteps.maskOverlay));
+    }
+
 
     public static class HttpHeaderMaskSteps {
         public static final String maskOverlay = "{{***}}";
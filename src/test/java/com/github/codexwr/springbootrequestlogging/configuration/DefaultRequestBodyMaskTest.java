@@ -10,7 +10,10 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
+import org.springframework.util.LinkedMultiValueMap;
 
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -84,6 +87,51 @@ class DefaultRequestBodyMaskTest {
         assertEquals(jsonBody, maskBody);
     }
 
+    @Test
+    @DisplayName("마스킹 규칙 없는 JSON 압축")
+    void unmaskedJsonCompact() throws JsonProcessingException {
+        // given
+        var method = HttpMethod.POST;
+        var path = "/auth/sign-in/email";
+        var jsonBody = """
+                {
+                    "name": "Hong \\"Gil\\" Dong",
+                    "tags": [ "a", "\\u00e9", "\\n" ],
+                    "amount": 1.50,
+                    "count": -0,
+                    "big": 123456789012345678901234567890,
+                    "nested": { "empty": {}, "list": [], "null": null, "ok": true }
+                }
+                """;
+
+        // when
+        var maskBody = RequestBodyMaskSteps.defaultRequestBodyMask.getMaskBody(method, path, MediaType.APPLICATION_JSON, jsonBody);
+
+        // then
+        assertEquals(objectMapper.readValue(jsonBody, JsonNode.class).toString(), maskBody);
+    }
+
+    @Test
+    @DisplayName("마스킹 규칙 없는 JSON 원문 기록")
+    void unmaskedJsonRaw() {
+        // given
+        var requestBodyMask = new DefaultRequestBodyMask(RequestBodyMaskSteps.maskOverlay, RequestBodyMaskSteps.jsonMasks, RequestBodyMaskSteps.keyMasks,
+                null, LoggingFilterProperties.UnmaskedJsonBodyMode.RAW);
+        var jsonBody = """
+                {
+                    "password": "password"
+                }
+                """;
+
+        // when
+        var rawBody = requestBodyMask.getMaskBody(HttpMethod.POST, "/auth/sign-in/email", MediaType.APPLICATION_JSON, jsonBody);
+        var maskBody = requestBodyMask.getMaskBody(HttpMethod.POST, "/auth/sign-up/email", MediaType.APPLICATION_JSON, jsonBody);
+
+        // then
+        assertEquals(jsonBody, rawBody);
+        assertEquals(RequestBodyMaskSteps.maskOverlay, JsonPath.parse(maskBody).read("$.password"));
+    }
+
     @Test
     @DisplayName("JSON 패턴 일치")
     void jsonPatternMatch() {
@@ -177,4 +225,118 @@ class DefaultRequestBodyMaskTest {
                 .hasEntrySatisfying("password", v -> assertThat(v).isEqualTo(RequestBodyMaskSteps.maskOverlay))
                 .hasEntrySatisfying("key", v -> assertThat(v).isEqualTo(formData.get("key")));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("잘못된 JsonPath - 생성 시점 오류")
+    void invalidJsonPath() {
+        // given
+        var jsonMasks = List.of(
+                new LoggingFilterProperties.PathJsonMask(HttpMethod.POST.name(), "/auth/**", Set.of("$.email", "$.."))
+        );
+
+        // when & then
+        assertThrowsExactly(IllegalArgumentException.class, () -> new DefaultRequestBodyMask(RequestBodyMaskSteps.maskOverlay, jsonMasks, null));
+    }
+
+    @Test
+    @DisplayName("RoutePolicy 외부 JsonPath - 잘못된 경로 무시")
+    void lenientJsonPathOfPolicy() {
+        // given
+        var policy = new RoutePolicy(HttpMethod.POST, "/auth/sign-up", false, Set.of(), Set.of("$.email", "$.."), Set.of(), Set.of());
+        var jsonBody = "{\"email\":\"email\",\"name\":\"name\"}";
+
+        // when
+        var maskBody = RequestBodyMaskSteps.defaultRequestBodyMask.getMaskBody(policy, MediaType.APPLICATION_JSON, jsonBody);
+
+        // then
+        assertEquals("{\"email\":\"" + RequestBodyMaskSteps.maskOverlay + "\",\"name\":\"name\"}", maskBody);
+    }
+
+    @Test
+    @DisplayName("RoutePolicy 외부 JsonPath - 요청마다 다른 규칙도 캐시는 제한")
+    void lenientJsonMasksBounded() {
+        // given
+        var requestBodyMask = new DefaultRequestBodyMask(RequestBodyMaskSteps.maskOverlay, List.of(), List.of());
+        var jsonBody = "{\"email\":\"email\",\"name\":\"name\"}";
+
+        for (int i = 0; i < 1000; i++) {
+            var policy = new RoutePolicy(HttpMethod.POST, "/auth/sign-up", false, Set.of(), Set.of("$.email", "$.field" + i), Set.of(), Set.of());
+
+            // when
+            var maskBody = requestBodyMask.getMaskBody(policy, MediaType.APPLICATION_JSON, jsonBody);
+
+            // then
+            assertEquals("{\"email\":\"" + RequestBodyMaskSteps.maskOverlay + "\",\"name\":\"name\"}", maskBody);
+        }
+        assertTrue(requestBodyMask.lenientJsonMasksSize() <= 64);
+    }
+
+    @Test
+    @DisplayName("바이트 본문을 로그 메시지에 바로 마스킹")
+    void appendMaskBody() {
+        // given
+        var maskPolicy = new RoutePolicy(HttpMethod.POST, "/auth/sign-up", false, Set.of(), Set.of("$..password"), Set.of(), Set.of());
+        var noMaskPolicy = new RoutePolicy(HttpMethod.POST, "/auth/sign-in", false, Set.of(), Set.of(), Set.of(), Set.of());
+        var jsonBody = "{ \"name\": \"홍길동\", \"password\": \"pässwörd\" }";
+
+        for (Charset charset : List.of(StandardCharsets.UTF_8, StandardCharsets.UTF_16LE)) {
+            var requestBody = LogBody.of(jsonBody.getBytes(charset), charset);
+            var maskOutput = new StringBuilder("requestBody=");
+            var noMaskOutput = new StringBuilder("requestBody=");
+
+            // when
+            RequestBodyMaskSteps.defaultRequestBodyMask.appendMaskBody(maskPolicy, MediaType.APPLICATION_JSON, requestBody, maskOutput);
+            RequestBodyMaskSteps.defaultRequestBodyMask.appendMaskBody(noMaskPolicy, MediaType.APPLICATION_JSON, requestBody, noMaskOutput);
+
+            // then
+            assertEquals("requestBody=" + RequestBodyMaskSteps.defaultRequestBodyMask.getMaskBody(maskPolicy, MediaType.APPLICATION_JSON, jsonBody), maskOutput.toString());
+            assertEquals("requestBody={\"name\":\"홍길동\",\"password\":\"" + RequestBodyMaskSteps.maskOverlay + "\"}", maskOutput.toString());
+            assertEquals("requestBody={\"name\":\"홍길동\",\"password\":\"pässwörd\"}", noMaskOutput.toString());
+        }
+    }
+
+    @Test
+    @DisplayName("FORM 파라미터를 직렬화하며 마스킹")
+    void appendFormDataMask() throws JsonProcessingException {
+        // given
+        var formData = new LinkedMultiValueMap<String, String>();
+        formData.add("email", "email");
+        formData.add("name", "name");
+        formData.addAll("password", List.of("password", "password2"));
+        var maskPolicy = new RoutePolicy(HttpMethod.POST, "/auth/login", false, Set.of(), Set.of(), RequestBodyMaskSteps.keyMask, Set.of());
+        var noMaskPolicy = new RoutePolicy(HttpMethod.POST, "/auth/sign-in", false, Set.of(), Set.of(), Set.of(), Set.of());
+        var maskOutput = new StringBuilder();
+        var noMaskOutput = new StringBuilder();
+
+        // when
+        RequestBodyMaskSteps.defaultRequestBodyMask.appendMaskBody(maskPolicy, MediaType.APPLICATION_FORM_URLENCODED, LogBody.ofFormData(formData), maskOutput);
+        RequestBodyMaskSteps.defaultRequestBodyMask.appendMaskBody(noMaskPolicy, MediaType.MULTIPART_FORM_DATA, LogBody.ofFormData(formData), noMaskOutput);
+
+        // then
+        var formString = objectMapper.writeValueAsString(formData);
+        assertEquals(RequestBodyMaskSteps.defaultRequestBodyMask.getMaskBody(maskPolicy, MediaType.APPLICATION_FORM_URLENCODED, formString), maskOutput.toString());
+        assertEquals("{\"email\":\"{{***}}\",\"name\":[\"name\"],\"password\":\"{{***}}\"}", maskOutput.toString());
+        assertEquals(formString, noMaskOutput.toString());
+    }
+
+    @Test
+    @DisplayName("잘린 본문은 읽은 부분까지만 마스킹")
+    void appendTruncatedMaskBody() {
+        // given
+        var maskPolicy = new RoutePolicy(HttpMethod.POST, "/auth/sign-up", false, Set.of(), Set.of("$..password"), Set.of(), Set.of());
+        var unsupportedPolicy = new RoutePolicy(HttpMethod.POST, "/auth/sign-up", false, Set.of(), Set.of("$.items[?(@.password)]"), Set.of(), Set.of());
+        var bytes = "{\"name\":\"name\",\"password\":\"password\",\"memo\":\"memo\"}".getBytes(StandardCharsets.UTF_8);
+        var requestBody = LogBody.of(bytes, StandardCharsets.UTF_8).limit(bytes.length - 6);
+        var maskOutput = new StringBuilder();
+        var unsupportedOutput = new StringBuilder();
+
+        // when
+        RequestBodyMaskSteps.defaultRequestBodyMask.appendMaskBody(maskPolicy, MediaType.APPLICATION_JSON, requestBody, maskOutput);
+        RequestBodyMaskSteps.defaultRequestBodyMask.appendMaskBody(unsupportedPolicy, MediaType.APPLICATION_JSON, requestBody, unsupportedOutput);
+
+        // then
+        assertTrue(requestBody.isTruncated());
+        assertEquals("{\"name\":\"name\",\"password\":\"" + RequestBodyMaskSteps.maskOverlay + "\",\"memo\":", maskOutput.toString());
+        assertEquals(RequestBodyMaskSteps.maskOverlay, unsupportedOutput.toString());
+    }
+}
@@ -130,4 +130,26 @@ class DefaultResponseBodyMaskTest {
         // then
         assertThrows(IllegalStateException.class, maskBody);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("JSON 키 마스킹 - 전역 및 경로별 키")
+    void jsonMaskKeys() {
+        // given
+        var jsonMasks = List.of(
+                new LoggingFilterProperties.PathJsonMask(HttpMethod.GET.name(), "/cards/**", Set.of(), Set.of("cvc"))
+        );
+        var responseBodyMask = new DefaultResponseBodyMask(ResponseBodyMaskSteps.maskOverlay, jsonMasks, Set.of("password"));
+        var jsonBody = """
+                {"password": "1", "cards": [{"number": "4111", "cvc": "123"}], "user": {"password": "2"}}
+                """;
+
+        // when
+        var routeMaskBody = responseBodyMask.getMaskBody(HttpMethod.GET, "/cards/1", MediaType.APPLICATION_JSON, jsonBody);
+        var defaultMaskBody = responseBodyMask.getMaskBody(HttpMethod.GET, "/users/1", MediaType.APPLICATION_JSON, jsonBody);
+
+        // then
+        var mask = ResponseBodyMaskSteps.maskOverlay;
+        assertEquals("{\"password\":\"" + mask + "\",\"cards\":[{\"number\":\"4111\",\"cvc\":\"" + mask + "\"}],\"user\":{\"password\":\"" + mask + "\"}}", routeMaskBody);
+        assertEquals("{\"password\":\"" + mask + "\",\"cards\":[{\"number\":\"4111\",\"cvc\":\"123\"}],\"user\":{\"password\":\"" + mask + "\"}}", defaultMaskBody);
+    }
+}
@@ -0,0 +1,157 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DefaultRoutePolicyResolverTest {
+    public static class RoutePolicyResolverSteps {
+        public static LoggingFilterProperties properties() {
+            var properties = new LoggingFilterProperties();
+            properties.setExcludeLoggingPaths(List.of(
+                    new LoggingFilterProperties.ExcludeLoggingPath(HttpMethod.GET.name(), Set.of("/open/**"))
+            ));
+            properties.setDefaultHeaderMasks(Set.of("Authorization"));
+            properties.setPathHeaderMask(List.of(
+                    new LoggingFilterProperties.PathKeyMask(HttpMethod.POST.name(), "/auth/**", Set.of("X-Request-ID"))
+            ));
+            properties.setRequestJsonBodyMasks(List.of(
+                    new LoggingFilterProperties.PathJsonMask(HttpMethod.POST.name(), "/auth/sign-up/**", Set.of("$.password")),
+                    new LoggingFilterProperties.PathJsonMask(HttpMethod.POST.name(), "/auth/**", Set.of("$.email"))
+            ));
+            properties.setRequestFormDataMasks(List.of(
+                    new LoggingFilterProperties.PathKeyMask(HttpMethod.POST.name(), "/auth/**", Set.of("password"))
+            ));
+            properties.setResponseJsonBodyMasks(List.of(
+                    new LoggingFilterProperties.PathJsonMask(HttpMethod.POST.name(), "/**", Set.of("$.token"))
+            ));
+            return properties;
+        }
+
+        public static final RoutePolicyResolver defaultRoutePolicyResolver = new DefaultRoutePolicyResolver(properties());
+    }
+
+    @Test
+    @DisplayName("로깅 제외 경로")
+    void ignored() {
+        // when
+        var policy = RoutePolicyResolverSteps.defaultRoutePolicyResolver.resolve(HttpMethod.GET, "/open/docs");
+
+        // then
+        assertTrue(policy.ignored());
+        assertThat(policy.headerMaskKeys()).containsOnly("authorization");
+        assertThat(policy.requestJsonMasks()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("경로 일치 - 규칙별 첫번째 패턴 적용")
+    void firstMatchPerRule() {
+        // when
+        var policy = RoutePolicyResolverSteps.defaultRoutePolicyResolver.resolve(HttpMethod.POST, "/auth/sign-up/email");
+
+        // then
+        assertFalse(policy.ignored());
+        assertThat(policy.headerMaskKeys()).containsOnly("x-request-id");
+        assertThat(policy.requestJsonMasks()).containsOnly("$.password");
+        assertThat(policy.requestFormMaskKeys()).containsOnly("password");
+        assertThat(policy.responseJsonMasks()).containsOnly("$.token");
+    }
+
+    @Test
+    @DisplayName("경로 불일치")
+    void noMatch() {
+        // when
+        var policy = RoutePolicyResolverSteps.defaultRoutePolicyResolver.resolve(HttpMethod.GET, "/members");
+
+        // then
+        assertFalse(policy.ignored());
+        assertThat(policy.headerMaskKeys()).containsOnly("authorization");
+        assertThat(policy.requestJsonMasks()).isEmpty();
+        assertThat(policy.requestFormMaskKeys()).isEmpty();
+        assertThat(policy.responseJsonMasks()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("경로 변수 - 요청 경로의 정책")
+    void resolveByPathVariables() {
+        // given
+        var resolver = new DefaultRoutePolicyResolver(RoutePolicyResolverSteps.properties());
+
+        // when
+        var first = resolver.resolve(HttpMethod.POST, "/auth/members/1");
+        var second = resolver.resolve(HttpMethod.POST, "/auth/members/2");
+        var unmatched = resolver.resolve(HttpMethod.GET, "/members/1");
+
+        // then
+        assertEquals("/auth/members/1", first.path());
+        assertEquals("/auth/members/2", second.path());
+        assertThat(first.requestJsonMasks()).containsOnly("$.email");
+        assertSame(first.requestJsonMasks(), second.requestJsonMasks());
+        assertThat(unmatched.headerMaskKeys()).containsOnly("authorization");
+    }
+
+    @Test
+    @DisplayName("잘못된 JsonPath - 생성 시점 오류")
+    void invalidJsonPath() {
+        // given
+        var properties = RoutePolicyResolverSteps.properties();
+        properties.setResponseJsonBodyMasks(List.of(
+                new LoggingFilterProperties.PathJsonMask(HttpMethod.GET.name(), "/**", Set.of("$.a[?(@.b"))
+        ));
+
+        // when & then
+        assertThrowsExactly(IllegalArgumentException.class, () -> new DefaultRoutePolicyResolver(properties));
+    }
+
+    @Test
+    @DisplayName("JSON 마스킹 키 - 전역 키는 모든 경로에 적용")
+    void jsonMaskKeys() {
+        // given
+        var properties = RoutePolicyResolverSteps.properties();
+        properties.setJsonMaskKeys(Set.of("ssn"));
+        properties.setResponseJsonBodyMasks(List.of(
+                new LoggingFilterProperties.PathJsonMask(HttpMethod.POST.name(), "/auth/**", Set.of(), Set.of("token"))
+        ));
+        var resolver = new DefaultRoutePolicyResolver(properties);
+
+        // when
+        var authPolicy = resolver.resolve(HttpMethod.POST, "/auth/sign-in");
+        var otherPolicy = resolver.resolve(HttpMethod.GET, "/members");
+
+        // then
+        assertThat(authPolicy.requestJsonMasks()).containsOnly("$.email", "$..['ssn']");
+        assertThat(authPolicy.responseJsonMasks()).containsOnly("$..['ssn']", "$..['token']");
+        assertThat(otherPolicy.requestJsonMasks()).containsOnly("$..['ssn']");
+        assertThat(otherPolicy.responseJsonMasks()).containsOnly("$..['ssn']");
+    }
+
+    @Test
+    @DisplayName("바디 캡처 크기 - 첫번째 일치 경로, 없으면 전역 값")
+    void maxBodyCaptureSize() {
+        // given
+        var properties = RoutePolicyResolverSteps.properties();
+        properties.setMaxBodyCaptureSize(DataSize.ofKilobytes(1));
+        properties.setPathBodyCaptureSizes(List.of(
+                new LoggingFilterProperties.PathCaptureSize(HttpMethod.GET.name(), "/reports/daily/**", DataSize.ofBytes(-1)),
+                new LoggingFilterProperties.PathCaptureSize(HttpMethod.GET.name(), "/reports/**", DataSize.ofBytes(100))
+        ));
+        var resolver = new DefaultRoutePolicyResolver(properties);
+
+        // when
+        var dailyPolicy = resolver.resolve(HttpMethod.GET, "/reports/daily/1");
+        var reportPolicy = resolver.resolve(HttpMethod.GET, "/reports/1");
+        var otherPolicy = resolver.resolve(HttpMethod.GET, "/members");
+
+        // then
+        assertEquals(RoutePolicy.UNLIMITED_CAPTURE_SIZE, dailyPolicy.maxBodyCaptureSize());
+        assertEquals(100, reportPolicy.maxBodyCaptureSize());
+        assertEquals(1024, otherPolicy.maxBodyCaptureSize());
+    }
+}
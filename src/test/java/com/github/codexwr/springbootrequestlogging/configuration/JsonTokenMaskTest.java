@@ -0,0 +1,245 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonTokenMaskTest {
+    public static class JsonTokenMaskSteps {
+        public static final String maskString = "{{MASKED}}";
+
+        public static final List<String> documents = List.of(
+                "{\"email\":\"a@b.com\",\"password\":\"1234\",\"name\":{\"first\":\"kim\",\"last\":\"lee\"}}",
+                "{ \"a\" : [ {\"b\":1}, {\"c\":2}, 3, [ {\"b\":4} ] ], \"b\" : {\"b\":{\"b\":5}} }",
+                "[{\"password\":\"x\"},{\"user\":{\"password\":[1,2]}},\"password\"]",
+                "{\"n\":[1.50,0.1234567890123456789,1e400,-0.0,-0,1E2,1.0,100,2147483648,12345678901234567890,1e-7,123456.789e3]}",
+                "{\"s\":\"\\u00e9\\u0080\\u009f\\u2028\\u20ac\\u0001\\b\\f\\r\\t\\n\\/<>&'\\\"\\\\\\ud83d\\ude00\\u007f\\u1fff\"}",
+                "{\"\\u0001k\\\"\":{\"password\":true},\"x\":null,\"y\":false}",
+                "{\"empty\":{},\"list\":[],\"nested\":[[[]]],\"password\":{}}",
+                "{\"data\":{\"items\":[{\"id\":1,\"card\":{\"number\":\"4111\",\"cvc\":\"123\"}},{\"id\":2,\"card\":null}]}}",
+                "{\"it's\":1,\"a\\\\b\":{\"it's\":[{\"cvc\":1}]}}"
+        );
+
+        public static final List<Set<String>> masks = List.of(
+                Set.of("$.password"),
+                Set.of("password"),
+                Set.of("$.name.*"),
+                Set.of("$.name[*]"),
+                Set.of("$['name']['first']", "$.email"),
+                Set.of("$.a[*].b"),
+                Set.of("$.a.b"),
+                Set.of("$..b"),
+                Set.of("$..password"),
+                Set.of("$..*"),
+                Set.of("$.*"),
+                Set.of("$[*]"),
+                Set.of("$..card.number", "$.data.items[*].id"),
+                Set.of("$.data..cvc", "$.data.items"),
+                Set.of("$.s", "$.n.*"),
+                Set.of("$.missing.value"),
+                Set.of("$..['password']", "$..cvc", "$..number", "$..['it\\'s']", "$..['a\\\\b']"),
+                Set.of("$..cvc", "$.data.items[*].card", "$..['it\\'s'][*]")
+        );
+
+        public static String jsonPathMask(String document, Set<String> masks) {
+            var doc = JsonPath.parse(document);
+            masks.forEach(path -> {
+                try {
+                    doc.set(path, maskString);
+                } catch (Exception ignore) {
+                }
+            });
+            return doc.jsonString();
+        }
+    }
+
+    @Test
+    @DisplayName("JsonPath 마스킹과 동일 결과")
+    void sameAsJsonPath() {
+        for (Set<String> masks : JsonTokenMaskSteps.masks) {
+            // given
+            var tokenMask = JsonTokenMask.compile(masks);
+            assertNotNull(tokenMask, masks::toString);
+
+            for (String document : JsonTokenMaskSteps.documents) {
+                // when
+                var masked = tokenMask.mask(document, JsonTokenMaskSteps.maskString);
+
+                // then
+                assertEquals(JsonTokenMaskSteps.jsonPathMask(document, masks), masked, () -> "masks=" + masks + ", document=" + document);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("지원하지 않는 JsonPath")
+    void unsupportedPath() {
+        // when & then
+        assertNull(JsonTokenMask.compile(Set.of("$.a[0]")));
+        assertNull(JsonTokenMask.compile(Set.of("$.a[?(@.b > 1)]")));
+        assertNull(JsonTokenMask.compile(Set.of("$.a.length()")));
+        assertNull(JsonTokenMask.compile(Set.of("$['a','b']")));
+        assertNull(JsonTokenMask.compile(Set.of("$.password", "$..")));
+        assertNull(JsonTokenMask.compile(Set.of("$")));
+    }
+
+    @Test
+    @DisplayName("엄격한 JSON 이 아니면 처리 안함")
+    void notStrictJson() {
+        // given
+        var tokenMask = JsonTokenMask.compile(Set.of("$.a"));
+        assertNotNull(tokenMask);
+
+        // when & then
+        assertNull(tokenMask.mask("{'a':1}", JsonTokenMaskSteps.maskString));
+        assertNull(tokenMask.mask("{\"a\":1,\"a\":2}", JsonTokenMaskSteps.maskString));
+        assertNull(tokenMask.mask("{\"a\":1} trailing", JsonTokenMaskSteps.maskString));
+        assertNull(tokenMask.mask("{\"a\":1", JsonTokenMaskSteps.maskString));
+        assertNull(tokenMask.mask("\"a\"", JsonTokenMaskSteps.maskString));
+        assertNull(tokenMask.mask("", JsonTokenMaskSteps.maskString));
+    }
+
+    @Test
+    @DisplayName("바이트 본문 마스킹")
+    void maskBytes() {
+        for (Set<String> masks : JsonTokenMaskSteps.masks) {
+            // given
+            var tokenMask = JsonTokenMask.compile(masks);
+            assertNotNull(tokenMask, masks::toString);
+
+            for (String document : JsonTokenMaskSteps.documents) {
+                for (Charset charset : List.of(StandardCharsets.UTF_8, StandardCharsets.UTF_16BE)) {
+                    var output = new StringBuilder("prefix=");
+
+                    // when
+                    var masked = tokenMask.mask(LogBody.of(document.getBytes(charset), charset), JsonTokenMaskSteps.maskString, output);
+
+                    // then
+                    assertTrue(masked);
+                    assertEquals("prefix=" + tokenMask.mask(document, JsonTokenMaskSteps.maskString), output.toString(), () -> "masks=" + masks + ", document=" + document);
+                }
+
+                // a body kept out of the heap
+                var bytes = document.getBytes(StandardCharsets.UTF_8);
+                var buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+                var output = new StringBuilder();
+                assertTrue(tokenMask.mask(LogBody.of(buffer, bytes.length, StandardCharsets.UTF_8), JsonTokenMaskSteps.maskString, output));
+                assertEquals(tokenMask.mask(document, JsonTokenMaskSteps.maskString), output.toString());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("처리 못한 바이트 본문은 출력 유지")
+    void maskBytesNotStrictJson() {
+        // given
+        var tokenMask = JsonTokenMask.compile(Set.of("$.a"));
+        assertNotNull(tokenMask);
+        var output = new StringBuilder("prefix=");
+
+        // when
+        var masked = tokenMask.mask(LogBody.of("{\"a\":1,\"b\":[1,2".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8), JsonTokenMaskSteps.maskString, output);
+
+        // then
+        assertFalse(masked);
+        assertEquals("prefix=", output.toString());
+    }
+
+    @Test
+    @DisplayName("잘린 바이트 본문은 마지막 값까지 마스킹")
+    void maskPartial() {
+        // given
+        var tokenMask = JsonTokenMask.compile(Set.of("$.a"));
+        assertNotNull(tokenMask);
+        var cutValue = new StringBuilder();
+        var cutMaskedValue = new StringBuilder();
+        var notDocument = new StringBuilder();
+
+        // when
+        var masked = tokenMask.maskPartial(LogBody.of("{\"a\":\"secret\",\"b\":\"val".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8), JsonTokenMaskSteps.maskString, cutValue);
+        tokenMask.maskPartial(LogBody.of("{\"b\":[true],\"a\":\"sec".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8), JsonTokenMaskSteps.maskString, cutMaskedValue);
+        var notMasked = tokenMask.maskPartial(LogBody.of("\"a\":\"secret".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8), JsonTokenMaskSteps.maskString, notDocument);
+
+        // then
+        assertTrue(masked);
+        assertEquals("{\"a\":\"{{MASKED}}\",\"b\":", cutValue.toString());
+        assertEquals("{\"b\":[true],\"a\":\"{{MASKED}}\"", cutMaskedValue.toString());
+        assertFalse(notMasked);
+        assertEquals("", notDocument.toString());
+    }
+
+    @Test
+    @DisplayName("청크 단위 스트리밍 마스킹은 전체 마스킹과 동일 결과")
+    void streamingMask() {
+        for (Set<String> masks : JsonTokenMaskSteps.masks) {
+            // given
+            var tokenMask = JsonTokenMask.compile(masks);
+            assertNotNull(tokenMask, masks::toString);
+
+            for (String document : JsonTokenMaskSteps.documents) {
+                var bytes = document.getBytes(StandardCharsets.UTF_8);
+                var streamingMask = tokenMask.newStreamingMask(JsonTokenMaskSteps.maskString, -1);
+
+                // when
+                for (int i = 0; i < bytes.length; i += 3)
+                    streamingMask.write(ByteBuffer.wrap(bytes, i, Math.min(3, bytes.length - i)));
+                var logBody = streamingMask.toLogBody(bytes.length);
+
+                // then
+                assertTrue(logBody.isMasked());
+                assertFalse(logBody.isTruncated());
+                assertEquals(tokenMask.mask(document, JsonTokenMaskSteps.maskString), logBody.toString(), () -> "masks=" + masks + ", document=" + document);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("스트리밍 마스킹은 최대 길이에서 멈추고 잘린 본문으로")
+    void streamingMaskTruncated() {
+        // given
+        var tokenMask = JsonTokenMask.compile(Set.of("$.a"));
+        assertNotNull(tokenMask);
+        var document = "{\"a\":\"secret\",\"b\":\"value\",\"c\":[1,2,3]}";
+        var bytes = document.getBytes(StandardCharsets.UTF_8);
+        var streamingMask = tokenMask.newStreamingMask(JsonTokenMaskSteps.maskString, 20);
+
+        // when
+        streamingMask.write(ByteBuffer.wrap(bytes, 0, 20));
+        streamingMask.write(ByteBuffer.wrap(bytes, 20, bytes.length - 20));
+        var logBody = streamingMask.toLogBody(bytes.length);
+
+        // then
+        assertTrue(logBody.isTruncated());
+        assertEquals(bytes.length, logBody.getOriginalLength());
+        assertEquals("{\"a\":\"{{MASKED}}\",\"b\":", logBody.toString());
+    }
+
+    @Test
+    @DisplayName("스트리밍 마스킹은 읽지 못하는 본문을 마스크 문자열로")
+    void streamingMaskNotStrictJson() {
+        // given
+        var tokenMask = JsonTokenMask.compile(Set.of("$.a"));
+        assertNotNull(tokenMask);
+
+        for (String document : List.of("{'a':'secret'}", "{\"a\":1,\"a\":2}", "{\"a\":1} {}", "\"secret\"", "{\"a\":\"secret\"")) {
+            var bytes = document.getBytes(StandardCharsets.UTF_8);
+            var streamingMask = tokenMask.newStreamingMask(JsonTokenMaskSteps.maskString, -1);
+
+            // when
+            streamingMask.write(ByteBuffer.wrap(bytes));
+            var logBody = streamingMask.toLogBody(bytes.length);
+
+            // then
+            assertEquals(JsonTokenMaskSteps.maskString, logBody.toString(), document);
+            assertFalse(logBody.isTruncated(), document);
+        }
+    }
+}
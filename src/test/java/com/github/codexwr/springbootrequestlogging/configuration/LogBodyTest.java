@@ -0,0 +1,127 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogBodyTest {
+    @Test
+    @DisplayName("바이트 본문 디코딩")
+    void decode() {
+        // given
+        var text = "{\"name\":\"홍길동\"}";
+        var bytes = ("--" + text + "--").getBytes(StandardCharsets.UTF_8);
+
+        // when
+        var body = LogBody.of(bytes, 2, bytes.length - 4, StandardCharsets.UTF_8);
+
+        // then
+        assertEquals(text, body.toString());
+        assertSame(body.toString(), body.toString());
+        assertEquals(text, LogBody.of(text.getBytes(StandardCharsets.UTF_16), StandardCharsets.UTF_16).toString());
+    }
+
+    @Test
+    @DisplayName("공백 본문")
+    void hasText() {
+        // when & then
+        assertFalse(LogBody.of(" \r\n\t".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8).hasText());
+        assertFalse(LogBody.of(new byte[0], StandardCharsets.ISO_8859_1).hasText());
+        assertFalse(LogBody.of(" \n".getBytes(StandardCharsets.UTF_16), StandardCharsets.UTF_16).hasText());
+        assertFalse(LogBody.of("  ").hasText());
+        assertTrue(LogBody.of(" 가 ".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8).hasText());
+        assertTrue(LogBody.of(" {} ".getBytes(StandardCharsets.UTF_16), StandardCharsets.UTF_16).hasText());
+        assertTrue(LogBody.of("a").hasText());
+        assertNull(LogBody.ofNullable(null));
+    }
+
+    @Test
+    @DisplayName("캡처 크기 제한")
+    void limit() {
+        // given
+        var bytes = "0123456789".getBytes(StandardCharsets.UTF_8);
+        var body = LogBody.of(bytes, StandardCharsets.UTF_8);
+
+        // when
+        var limited = body.limit(4);
+
+        // then
+        assertTrue(limited.isTruncated());
+        assertEquals("0123", limited.toString());
+        assertEquals(10, limited.getOriginalLength());
+        assertSame(body, body.limit(10));
+        assertSame(body, body.limit(-1));
+        assertFalse(body.isTruncated());
+        assertTrue(LogBody.ofTruncated(bytes, 0, 10, 20, StandardCharsets.UTF_8).isTruncated());
+    }
+
+    @Test
+    @DisplayName("전체 길이를 모르는 잘린 본문")
+    void unknownLength() {
+        // given
+        var bytes = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+        // when
+        var body = LogBody.ofTruncated(bytes, 0, bytes.length, LogBody.UNKNOWN_LENGTH, StandardCharsets.UTF_8);
+        var masked = LogBody.ofMasked("{\"name\":", LogBody.UNKNOWN_LENGTH);
+
+        // then
+        assertTrue(body.isTruncated());
+        assertEquals(LogBody.UNKNOWN_LENGTH, body.getOriginalLength());
+        assertEquals("0123456789", body.toString());
+        assertTrue(masked.isTruncated());
+        assertEquals(LogBody.UNKNOWN_LENGTH, masked.getOriginalLength());
+    }
+
+    @Test
+    @DisplayName("힙 밖 버퍼 본문")
+    void byteBuffer() {
+        // given
+        var bytes = " {\"name\":\"홍길동\"} ".getBytes(StandardCharsets.UTF_8);
+        var buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+
+        // when
+        var body = LogBody.of(buffer, bytes.length, StandardCharsets.UTF_8);
+        var limited = body.limit(2);
+
+        // then
+        assertEquals(" {\"name\":\"홍길동\"} ", body.toString());
+        assertEquals(0, buffer.position());
+        assertTrue(body.hasText());
+        assertTrue(limited.isTruncated());
+        assertEquals(" {", limited.toString());
+        assertFalse(LogBody.of(ByteBuffer.wrap("  ".getBytes(StandardCharsets.UTF_8)), 2, StandardCharsets.UTF_8).hasText());
+    }
+
+    @Test
+    @DisplayName("여러 버퍼에 나뉜 본문")
+    void byteBuffers() throws IOException {
+        // given
+        var bytes = "{\"name\":\"홍길동\"}".getBytes(StandardCharsets.UTF_8);
+        // a character split across the buffers
+        var first = ByteBuffer.wrap(bytes, 0, 10).slice();
+        var second = ByteBuffer.allocateDirect(bytes.length - 10).put(bytes, 10, bytes.length - 10).flip();
+
+        // when
+        var body = LogBody.of(List.of(first, second), -1, bytes.length, StandardCharsets.UTF_8);
+        var limited = LogBody.of(List.of(first, second), 12, bytes.length, StandardCharsets.UTF_8);
+
+        // then
+        assertEquals("{\"name\":\"홍길동\"}", body.toString());
+        assertArrayEquals(bytes, body.byteBufferStream().readAllBytes());
+        assertFalse(body.isTruncated());
+        assertTrue(body.hasText());
+        assertTrue(limited.isTruncated());
+        assertEquals(bytes.length, limited.getOriginalLength());
+        assertEquals("{\"name\":\"홍", limited.toString());
+        assertEquals("{\"name\":\"", body.limit(9).toString());
+        assertEquals(0, second.position());
+        assertFalse(LogBody.of(List.of(ByteBuffer.wrap(" ".getBytes(StandardCharsets.UTF_8)), ByteBuffer.wrap("\n".getBytes(StandardCharsets.UTF_8))), -1, 2, StandardCharsets.UTF_8).hasText());
+    }
+}
@@ -0,0 +1,121 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogExecutorTest {
+    public static class LogExecutorSteps {
+        public static Runnable blockUntil(CountDownLatch started, CountDownLatch latch) {
+            return () -> {
+                started.countDown();
+                try {
+                    latch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+        }
+    }
+
+    @Test
+    @DisplayName("INLINE 은 호출 스레드에서 출력")
+    void inline() {
+        // given
+        var executor = LogExecutor.inline();
+        var threads = new CopyOnWriteArrayList<Thread>();
+
+        // when
+        var executed = executor.execute(() -> threads.add(Thread.currentThread()));
+
+        // then
+        assertTrue(executed);
+        assertEquals(List.of(Thread.currentThread()), threads);
+        assertEquals(0, executor.getQueueSize());
+    }
+
+    @Test
+    @DisplayName("QUEUE 는 전용 스레드에서 넘긴 순서대로 출력")
+    void queue() throws InterruptedException {
+        // given
+        try (var executor = new LogExecutor(LoggingFilterProperties.LogExecutionMode.QUEUE, 1, 1024)) {
+            var lines = new CopyOnWriteArrayList<Integer>();
+            var threads = new CopyOnWriteArrayList<Thread>();
+            var done = new CountDownLatch(100);
+
+            // when
+            for (int i = 0; i < 100; i++) {
+                int line = i;
+                executor.execute(() -> {
+                    lines.add(line);
+                    threads.add(Thread.currentThread());
+                    done.countDown();
+                });
+            }
+
+            // then
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(IntStream.range(0, 100).boxed().toList(), lines);
+            assertTrue(threads.stream().noneMatch(thread -> thread == Thread.currentThread()));
+            assertEquals(0, executor.getDroppedCount());
+        }
+    }
+
+    @Test
+    @DisplayName("큐가 가득 차면 기다리지 않고 버림")
+    void dropWhenFull() throws InterruptedException {
+        for (var mode : List.of(LoggingFilterProperties.LogExecutionMode.QUEUE, LoggingFilterProperties.LogExecutionMode.SCHEDULER)) {
+            // given
+            try (var executor = new LogExecutor(mode, 1, 2)) {
+                var started = new CountDownLatch(1);
+                var latch = new CountDownLatch(1);
+                executor.execute(LogExecutorSteps.blockUntil(started, latch));
+                assertTrue(started.await(10, TimeUnit.SECONDS));
+
+                // when
+                var first = executor.execute(() -> {
+                });
+                var second = executor.execute(() -> {
+                });
+                var third = executor.execute(() -> {
+                });
+
+                // then
+                assertTrue(first, mode::name);
+                assertTrue(second, mode::name);
+                assertFalse(third, mode::name);
+                assertEquals(2, executor.getQueueSize(), mode::name);
+                assertEquals(1, executor.getDroppedCount(), mode::name);
+                latch.countDown();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("닫을 때 넘겨진 출력까지 마침")
+    void closeAfterPrints() {
+        // given
+        var lines = new CopyOnWriteArrayList<Integer>();
+        var executor = new LogExecutor(LoggingFilterProperties.LogExecutionMode.SCHEDULER, 2, 1024);
+        for (int i = 0; i < 10; i++) {
+            int line = i;
+            executor.execute(() -> lines.add(line));
+        }
+
+        // when
+        executor.close();
+
+        // then
+        assertEquals(10, lines.size());
+        assertEquals(10, executor.getExecutedCount());
+        assertFalse(executor.execute(() -> {
+        }));
+    }
+}
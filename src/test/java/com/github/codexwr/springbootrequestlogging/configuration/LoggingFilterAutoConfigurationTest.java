@@ -23,6 +23,18 @@ class LoggingFilterAutoConfigurationTest {
         contextRunner.run(context -> assertThat(context.getBean(UsernameProvider.class)).isInstanceOf(DefaultUsernameProvider.class));
     }
 
+    @Test
+    @DisplayName("captureBufferPool 로딩")
+    void captureBufferPool() {
+        contextRunner.run(context -> assertThat(context.getBean(CaptureBufferPool.class).getMaxRetainedSize()).isEqualTo(16 * 1024 * 1024));
+    }
+
+    @Test
+    @DisplayName("routePolicyResolver 로딩")
+    void routePolicyResolver() {
+        contextRunner.run(context -> assertThat(context.getBean(RoutePolicyResolver.class)).isInstanceOf(DefaultRoutePolicyResolver.class));
+    }
+
     @Test
     @DisplayName("ignoreLoggingPath 로딩")
     void ignoreLoggingPath() {
@@ -52,4 +64,18 @@ class LoggingFilterAutoConfigurationTest {
     void logPrinter() {
         contextRunner.run(context -> assertThat(context.getBean(LogPrinter.class)).isInstanceOf(DefaultLogPrinter.class));
     }
+
+    @Test
+    @DisplayName("logPrinter 출력 항목만 수집")
+    void logPrinterIncludes() {
+        contextRunner
+                .withPropertyValues(LoggingFilterProperties.PREFIX + ".include-headers=false", LoggingFilterProperties.PREFIX + ".include-response-body=true")
+                .run(context -> {
+                    var logPrinter = context.getBean(LogPrinter.class);
+                    assertThat(logPrinter.isEnabled()).isTrue();
+                    assertThat(logPrinter.includes(LoggingFilterProperties.DefaultLogItemType.HEADER)).isFalse();
+                    assertThat(logPrinter.includes(LoggingFilterProperties.DefaultLogItemType.RESPONSE_BODY)).isTrue();
+                    assertThat(logPrinter.includes(LoggingFilterProperties.DefaultLogItemType.URL)).isTrue();
+                });
+    }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpMethod;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.unit.DataSize;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.atIndex;
@@ -86,6 +87,32 @@ public class LoggingFilterPropertiesTest {
                     assertThat(path.getMaskJson())
                             .hasSize(2)
                             .anyMatch(it -> it.equals("$.name.*"));
+                    assertThat(path.getMaskKeys()).containsOnly("ssn");
+                });
+    }
+
+    @Test
+    @DisplayName("JSON 키 마스킹 설정값 확인")
+    void checkJsonMaskKeys() {
+        // given classpath:application-test-props.yml
+
+        // then
+        assertThat(props.getJsonMaskKeys()).containsOnly("password", "cardNumber");
+    }
+
+    @Test
+    @DisplayName("바디 캡처 크기 설정값 확인")
+    void checkBodyCaptureSize() {
+        // given classpath:application-test-props.yml
+
+        // then
+        assertThat(props.getMaxBodyCaptureSize()).isEqualTo(DataSize.ofKilobytes(64));
+        assertThat(props.getPathBodyCaptureSizes())
+                .singleElement()
+                .satisfies(path -> {
+                    assertThat(path.getMethod()).isEqualTo(HttpMethod.GET);
+                    assertThat(path.getPathPattern()).isEqualTo("/api/reports/**");
+                    assertThat(path.getMaxSize()).isEqualTo(DataSize.ofKilobytes(1));
                 });
     }
 }
@@ -0,0 +1,94 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutePatternIndexTest {
+    public static class RoutePatternIndexSteps {
+        public static final List<String> patterns = List.of(
+                "/api/users", "/api/users/*", "/api/users/**", "/api/*/orders", "/api/**/items/*",
+                "/api/users/{id}/profile", "/api/users/{id:\\d+}", "/files/*.json", "/files/img-??.png",
+                "/**/health", "/static/**/*.css", "/trailing/", "/*", "/", "relative/path", "/a/**/b/**/c"
+        );
+
+        public static final List<String> paths = List.of(
+                "/api/users", "/api/users/", "/api/users/1", "/api/users/abc", "/api/users/1/profile",
+                "/api/shop/orders", "/api/shop/a/b/items/9", "/files/data.json", "/files/img-01.png",
+                "/files/img-001.png", "/actuator/health", "/health", "/static/css/main.css", "/static/main.css",
+                "/trailing/", "/trailing", "/x", "/", "", "relative/path", "/relative/path",
+                "/a/b/c", "/a/x/b/y/c", "/a/b/x", "/api//users"
+        );
+    }
+
+    @Test
+    @DisplayName("AntPathMatcher 동일 결과")
+    void sameAsAntPathMatcher() {
+        var antPathMatcher = new AntPathMatcher();
+
+        for (String pattern : RoutePatternIndexSteps.patterns) {
+            // given
+            var index = new RoutePatternIndex<String>();
+            index.computeIfAbsent(HttpMethod.GET, pattern, k -> k);
+
+            for (String path : RoutePatternIndexSteps.paths) {
+                // when
+                var isMatch = index.matches(HttpMethod.GET, path);
+
+                // then
+                assertEquals(antPathMatcher.match(pattern, path), isMatch, () -> "pattern=" + pattern + ", path=" + path);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("먼저 등록된 패턴 우선")
+    void firstMatchWins() {
+        // given
+        var index = new RoutePatternIndex<String>();
+        index.computeIfAbsent(HttpMethod.GET, "/**", k -> "all");
+        index.computeIfAbsent(HttpMethod.GET, "/api/users/*", k -> "users");
+
+        var reversed = new RoutePatternIndex<String>();
+        reversed.computeIfAbsent(HttpMethod.GET, "/api/users/*", k -> "users");
+        reversed.computeIfAbsent(HttpMethod.GET, "/**", k -> "all");
+
+        // when && then
+        assertEquals("all", index.getFirstMatch(HttpMethod.GET, "/api/users/1"));
+        assertEquals("users", reversed.getFirstMatch(HttpMethod.GET, "/api/users/1"));
+        assertEquals("all", reversed.getFirstMatch(HttpMethod.GET, "/api/orders/1"));
+    }
+
+    @Test
+    @DisplayName("HTTP 메소드 구분")
+    void methodMismatch() {
+        // given
+        var index = new RoutePatternIndex<String>();
+        index.computeIfAbsent(HttpMethod.POST, "/api/**", k -> k);
+
+        // when && then
+        assertNull(index.getFirstMatch(HttpMethod.GET, "/api/users"));
+        assertTrue(index.matches(HttpMethod.POST, "/api/users"));
+    }
+
+    @Test
+    @DisplayName("동일 패턴 병합")
+    void samePatternMerged() {
+        // given
+        var index = new RoutePatternIndex<List<String>>();
+        var first = index.computeIfAbsent(HttpMethod.GET, "/api/**", k -> new ArrayList<>());
+
+        // when
+        var second = index.computeIfAbsent(HttpMethod.GET, "/api/**", k -> new ArrayList<>());
+
+        // then
+        assertThat(second).isSameAs(first);
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.codexwr.springbootrequestlogging.configuration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValueRedactorTest {
+    public static class ValueRedactorSteps {
+        public static final String maskString = "{{MASKED}}";
+
+        public static final ValueRedactor valueRedactor = new ValueRedactor(maskString, new LoggingFilterProperties.ValueRedaction().getTokenPrefixes(), true, true);
+
+        public static String redact(ValueRedactor redactor, String text) {
+            var output = new StringBuilder("requestBody=").append(text);
+            redactor.redact(output, "requestBody=".length());
+            return output.substring("requestBody=".length());
+        }
+    }
+
+    @Test
+    @DisplayName("토큰 접두어")
+    void tokenPrefix() {
+        // when & then
+        assertEquals("{\"message\":\"Bearer {{MASKED}} expired\"}", ValueRedactorSteps.redact(ValueRedactorSteps.valueRedactor, "{\"message\":\"Bearer abcdEFGH.1234-_ expired\"}"));
+        assertEquals("{\"message\":\"bearer {{MASKED}}\"}", ValueRedactorSteps.redact(ValueRedactorSteps.valueRedactor, "{\"message\":\"bearer abcdefgh12345\"}"));
+        assertEquals("{\"token\":\"{{MASKED}}\"}", ValueRedactorSteps.redact(ValueRedactorSteps.valueRedactor, "{\"token\":\"eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiIxIn0.c2lnbg\"}"));
+        assertEquals("key={{MASKED}}, next", ValueRedactorSteps.redact(ValueRedactorSteps.valueRedactor, "key=sk_live_1234567890abcdef, next"));
+    }
+
+    @Test
+    @DisplayName("단어 중간이나 짧은 토큰은 유지")
+    void tokenPrefixNotMatch() {
+        // given
+        var text = "{\"task_id\":\"task_1234567890\",\"value\":\"sk_short\",\"Bearer\":\"Bearer x\",\"data\":\"keyJabcdefghijkl\"}";
+
+        // when & then
+        assertEquals(text, ValueRedactorSteps.redact(ValueRedactorSteps.valueRedactor, text));
+    }
+
+    @Test
+    @DisplayName("접두어 부분 일치 후 다른 접두어 일치")
+    void tokenPrefixFailureLink() {
+        // given
+        var redactor = new ValueRedactor(ValueRedactorSteps.maskString, List.of("[tokens", "token: "), false, false);
+
+        // when & then
+        assertEquals("[token: {{MASKED}}]", ValueRedactorSteps.redact(redactor, "[token: abcdefgh1]"));
+        assertEquals("{{MASKED}}", ValueRedactorSteps.redact(redactor, "[tokens1234567890"));
+    }
+
+    @Test
+    @DisplayName("카드 번호")
+    void cardNumber() {
+        // when & then
+        assertEquals("{\"card\":\"{{MASKED}}\",\"amount\":1000}", ValueRedactorSteps.redact(ValueRedactorSteps.valueRedactor, "{\"card\":\"4111 1111 1111 1111\",\"amount\":1000}"));
+        assertEquals("card {{MASKED}}.", ValueRedactorSteps.redact(ValueRedactorSteps.valueRedactor, "card 5500-0000-0000-0004."));
+        assertEquals("{\"card\":{{MASKED}}}", ValueRedactorSteps.redact(ValueRedactorSteps.valueRedactor, "{\"card\":378282246310005}"));
+    }
+
+    @Test
+    @DisplayName("카드 번호 아닌 숫자는 유지")
+    void cardNumberNotMatch() {
+        // given
+        var text = "{\"luhn\":\"4111111111111112\",\"createdAt\":1700000000000,\"zero\":\"0000000000000000\",\"long\":41111111111111111111,\"id\":\"a4111111111111111\",\"short\":411111111111}";
+
+        // when & then
+        assertEquals(text, ValueRedactorSteps.redact(ValueRedactorSteps.valueRedactor, text));
+    }
+
+    @Test
+    @DisplayName("이메일")
+    void email() {
+        // when & then
+        assertEquals("{\"message\":\"user {{MASKED}} not found.\"}", ValueRedactorSteps.redact(ValueRedactorSteps.valueRedactor, "{\"message\":\"user kim.lee+test@mail.example.co.kr not found.\"}"));
+        assertEquals("@home, a@b, a@localhost", ValueRedactorSteps.redact(ValueRedactorSteps.valueRedactor, "@home, a@b, a@localhost"));
+    }
+
+    @Test
+    @DisplayName("일치 없으면 출력 유지")
+    void noMatch() {
+        // given
+        var output = new StringBuilder("Bearer abcdefghijkl, body=");
+        int start = output.length();
+        output.append("{\"name\":\"홍길동\",\"age\":20}");
+        var expected = output.toString();
+
+        // when
+        ValueRedactorSteps.valueRedactor.redact(output, start);
+
+        // then
+        assertEquals(expected, output.toString());
+    }
+}
@@ -0,0 +1,282 @@
+package com.github.codexwr.springbootrequestlogging.reactor;
+
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBufferPool;
+import com.github.codexwr.springbootrequestlogging.configuration.LogBody;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedRequestDecoratorTest {
+    public static class CachedRequestDecoratorSteps {
+        public static final String body = "{\"name\":\"name\",\"memo\":\"memo\"}";
+        private static final NettyDataBufferFactory bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+
+        public static List<NettyDataBuffer> pooledChunks(String text, int chunkSize) {
+            return Flux.range(0, (text.length() + chunkSize - 1) / chunkSize)
+                    .map(i -> text.substring(i * chunkSize, Math.min(text.length(), (i + 1) * chunkSize)).getBytes(StandardCharsets.UTF_8))
+                    .map(bytes -> bufferFactory.allocateBuffer(bytes.length).write(bytes))
+                    .collectList()
+                    .block();
+        }
+
+        public static CachedRequestDecorator jsonRequest(List<NettyDataBuffer> chunks, long maxCaptureSize) {
+            var request = MockServerHttpRequest.post("/test/member")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Flux.fromIterable(chunks));
+            return new CachedRequestDecorator(request, () -> null, maxCaptureSize, CaptureBufferPool.unpooled());
+        }
+
+        public static CachedRequestDecorator jsonRequestCapturedOnRead(Flux<NettyDataBuffer> body, long contentLength) {
+            var request = MockServerHttpRequest.post("/test/member")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .contentLength(contentLength)
+                    .body(body);
+            return new CachedRequestDecorator(request, () -> null, -1, CaptureBufferPool.unpooled(), true, -1, contentType -> null);
+        }
+
+        public static String read(Flux<DataBuffer> body) {
+            return DataBufferUtils.join(body)
+                    .map(buffer -> {
+                        var text = buffer.toString(StandardCharsets.UTF_8);
+                        DataBufferUtils.release(buffer);
+                        return text;
+                    })
+                    .block();
+        }
+    }
+
+    @Test
+    @DisplayName("받은 버퍼를 유지하고 핸들러에 재생, 반환시 해제")
+    void replayRetainedBuffers() {
+        // given
+        var chunks = CachedRequestDecoratorSteps.pooledChunks(CachedRequestDecoratorSteps.body, 8);
+        var decorator = CachedRequestDecoratorSteps.jsonRequest(chunks, -1);
+
+        // when
+        var logBody = decorator.getCachedLogBody().block();
+        var first = CachedRequestDecoratorSteps.read(decorator.getBody());
+        var second = CachedRequestDecoratorSteps.read(decorator.getBody());
+
+        // then
+        assertEquals(CachedRequestDecoratorSteps.body, logBody.toString());
+        assertEquals(CachedRequestDecoratorSteps.body, first);
+        assertEquals(CachedRequestDecoratorSteps.body, second);
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.getNativeBuffer().refCnt() == 1));
+
+        decorator.release();
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.getNativeBuffer().refCnt() == 0));
+    }
+
+    @Test
+    @DisplayName("로그용 복사는 캡처 크기까지만")
+    void boundedCapture() {
+        // given
+        var chunks = CachedRequestDecoratorSteps.pooledChunks(CachedRequestDecoratorSteps.body, 8);
+        var decorator = CachedRequestDecoratorSteps.jsonRequest(chunks, 10);
+
+        // when
+        var logBody = decorator.getCachedLogBody().block();
+        var read = CachedRequestDecoratorSteps.read(decorator.getBody());
+        decorator.release();
+
+        // then
+        assertTrue(logBody.isTruncated());
+        assertEquals(CachedRequestDecoratorSteps.body.length(), logBody.getOriginalLength());
+        assertEquals(CachedRequestDecoratorSteps.body, read);
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.getNativeBuffer().refCnt() == 0));
+    }
+
+    @Test
+    @DisplayName("취소시 받은 버퍼 해제")
+    void releaseOnCancel() {
+        // given
+        var chunks = CachedRequestDecoratorSteps.pooledChunks(CachedRequestDecoratorSteps.body, 8);
+        var request = MockServerHttpRequest.post("/test/member")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Flux.fromIterable(chunks).concatWith(Flux.never()));
+        var decorator = new CachedRequestDecorator(request, () -> null, -1, CaptureBufferPool.unpooled());
+
+        // when
+        decorator.getBody().subscribe().dispose();
+        decorator.release();
+
+        // then
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.getNativeBuffer().refCnt() == 0));
+    }
+
+    @Test
+    @DisplayName("핸들러가 읽는 동안 캡처, 읽기가 끝나면 리스너 호출")
+    void captureOnRead() {
+        // given
+        var chunks = CachedRequestDecoratorSteps.pooledChunks(CachedRequestDecoratorSteps.body, 8);
+        var decorator = CachedRequestDecoratorSteps.jsonRequestCapturedOnRead(Flux.fromIterable(chunks), CachedRequestDecoratorSteps.body.length());
+        var consumed = new AtomicInteger();
+        decorator.setBodyConsumedListener(consumed::incrementAndGet);
+
+        // when
+        var body = decorator.getBody();
+        var beforeRead = consumed.get();
+        var read = CachedRequestDecoratorSteps.read(body);
+        var logBody = decorator.getCachedLogBody().block();
+        decorator.release();
+
+        // then
+        assertTrue(decorator.isCapturedOnRead());
+        assertEquals(0, beforeRead);
+        assertEquals(1, consumed.get());
+        assertEquals(CachedRequestDecoratorSteps.body, read);
+        assertEquals(CachedRequestDecoratorSteps.body, logBody.toString());
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.getNativeBuffer().refCnt() == 0));
+    }
+
+    @Test
+    @DisplayName("핸들러가 읽다 멈춘 본문은 읽은 만큼 잘린 본문으로")
+    void captureOnReadCancelled() {
+        // given
+        var chunks = CachedRequestDecoratorSteps.pooledChunks(CachedRequestDecoratorSteps.body, 8);
+        var decorator = CachedRequestDecoratorSteps.jsonRequestCapturedOnRead(Flux.fromIterable(chunks).concatWith(Flux.never()), CachedRequestDecoratorSteps.body.length());
+        var consumed = new AtomicInteger();
+        decorator.setBodyConsumedListener(consumed::incrementAndGet);
+
+        // when
+        decorator.getBody().take(2).doOnNext(DataBufferUtils::release).blockLast();
+        var logBody = decorator.getCachedLogBody().block();
+        decorator.release();
+        chunks.subList(2, chunks.size()).forEach(DataBufferUtils::release);
+
+        // then
+        assertEquals(1, consumed.get());
+        assertTrue(logBody.isTruncated());
+        assertEquals(CachedRequestDecoratorSteps.body.length(), logBody.getOriginalLength());
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.getNativeBuffer().refCnt() == 0));
+    }
+
+    @Test
+    @DisplayName("핸들러가 읽지 않은 본문은 로그를 위해 읽고 버퍼는 바로 해제")
+    void captureOnReadNotRead() {
+        // given
+        var chunks = CachedRequestDecoratorSteps.pooledChunks(CachedRequestDecoratorSteps.body, 8);
+        var decorator = CachedRequestDecoratorSteps.jsonRequestCapturedOnRead(Flux.fromIterable(chunks), CachedRequestDecoratorSteps.body.length());
+
+        // when
+        var logBody = decorator.getCachedLogBody().block();
+        var releasedBeforeExchange = chunks.stream().allMatch(chunk -> chunk.getNativeBuffer().refCnt() == 0);
+        var again = decorator.getCachedLogBody().block();
+        decorator.release();
+
+        // then
+        assertEquals(CachedRequestDecoratorSteps.body, logBody.toString());
+        assertEquals(CachedRequestDecoratorSteps.body, again.toString());
+        assertTrue(releasedBeforeExchange);
+    }
+
+    @Test
+    @DisplayName("핸들러가 읽지 않은 본문은 캡처 크기를 넘을 때까지만 읽음")
+    void captureOnReadNotReadBounded() {
+        // given
+        var chunks = CachedRequestDecoratorSteps.pooledChunks(CachedRequestDecoratorSteps.body, 8);
+        // a body not received to its end
+        var withLength = new CachedRequestDecorator(MockServerHttpRequest.post("/test/member")
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(CachedRequestDecoratorSteps.body.length())
+                .body(Flux.fromIterable(chunks.subList(0, 2)).concatWith(Flux.never())), () -> null, 10, CaptureBufferPool.unpooled(), true, -1, contentType -> null);
+        var withoutLength = new CachedRequestDecorator(MockServerHttpRequest.post("/test/member")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Flux.fromIterable(chunks.subList(2, chunks.size()))), () -> null, 4, CaptureBufferPool.unpooled(), true, -1, contentType -> null);
+
+        // when
+        var logBody = withLength.getCachedLogBody().block();
+        var logBodyWithoutLength = withoutLength.getCachedLogBody().block();
+        var notRead = chunks.get(chunks.size() - 1).getNativeBuffer().refCnt();
+        withLength.release();
+        withoutLength.release();
+        chunks.get(chunks.size() - 1).release();
+
+        // then
+        assertEquals(CachedRequestDecoratorSteps.body.substring(0, 10), logBody.toString());
+        assertTrue(logBody.isTruncated());
+        assertEquals(CachedRequestDecoratorSteps.body.length(), logBody.getOriginalLength());
+        assertEquals(CachedRequestDecoratorSteps.body.substring(16, 20), logBodyWithoutLength.toString());
+        assertEquals(LogBody.UNKNOWN_LENGTH, logBodyWithoutLength.getOriginalLength());
+        assertEquals(1, notRead);
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.getNativeBuffer().refCnt() == 0));
+    }
+
+    @Test
+    @DisplayName("로그를 위해 읽다 실패하면 읽은 만큼 잘린 본문으로")
+    void captureOnReadNotReadFailed() {
+        // given
+        var chunks = CachedRequestDecoratorSteps.pooledChunks(CachedRequestDecoratorSteps.body, 8);
+        var body = Flux.fromIterable(chunks.subList(0, 1)).concatWith(Flux.error(new IllegalStateException("aborted")));
+        var decorator = CachedRequestDecoratorSteps.jsonRequestCapturedOnRead(body, CachedRequestDecoratorSteps.body.length());
+
+        // when
+        var logBody = decorator.getCachedLogBody().block();
+        decorator.release();
+        chunks.subList(1, chunks.size()).forEach(DataBufferUtils::release);
+
+        // then
+        assertEquals(CachedRequestDecoratorSteps.body.substring(0, 8), logBody.toString());
+        assertTrue(logBody.isTruncated());
+        assertEquals(CachedRequestDecoratorSteps.body.length(), logBody.getOriginalLength());
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.getNativeBuffer().refCnt() == 0));
+    }
+
+    @Test
+    @DisplayName("유지 크기를 넘으면 미리 읽기를 멈추고 나머지는 핸들러가 받는 대로")
+    void retainUpToMaxSize() {
+        // given
+        var chunks = CachedRequestDecoratorSteps.pooledChunks(CachedRequestDecoratorSteps.body, 8);
+        var request = MockServerHttpRequest.post("/test/member")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Flux.fromIterable(chunks));
+        var decorator = new CachedRequestDecorator(request, () -> null, -1, CaptureBufferPool.unpooled(), false, 16, contentType -> null);
+
+        // when
+        var logBody = decorator.getCachedLogBody().block();
+        var read = CachedRequestDecoratorSteps.read(decorator.getBody());
+        var retainedAfterRead = chunks.subList(0, 2).stream().allMatch(chunk -> chunk.getNativeBuffer().refCnt() == 1);
+        decorator.release();
+
+        // then
+        assertEquals(CachedRequestDecoratorSteps.body.substring(0, 16), logBody.toString());
+        assertTrue(logBody.isTruncated());
+        assertEquals(24, logBody.getOriginalLength());
+        assertEquals(CachedRequestDecoratorSteps.body, read);
+        assertTrue(retainedAfterRead);
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.getNativeBuffer().refCnt() == 0));
+    }
+
+    @Test
+    @DisplayName("핸들러가 읽지 않은 유지 크기 초과분은 반환시 해제")
+    void releaseNotReadPastMaxSize() {
+        // given
+        var chunks = CachedRequestDecoratorSteps.pooledChunks(CachedRequestDecoratorSteps.body, 8);
+        var request = MockServerHttpRequest.post("/test/member")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Flux.fromIterable(chunks));
+        var decorator = new CachedRequestDecorator(request, () -> null, -1, CaptureBufferPool.unpooled(), false, 8, contentType -> null);
+
+        // when
+        decorator.getCachedLogBody().block();
+        decorator.release();
+        // not read ahead, nor by the handler
+        chunks.subList(2, chunks.size()).forEach(DataBufferUtils::release);
+
+        // then
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.getNativeBuffer().refCnt() == 0));
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.codexwr.springbootrequestlogging.reactor;
+
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBufferPool;
+import com.github.codexwr.springbootrequestlogging.configuration.LogBody;
+import com.github.codexwr.springbootrequestlogging.configuration.StreamingBodyMask;
+import jakarta.annotation.Nonnull;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedResponseDecoratorTest {
+    public static class CachedResponseDecoratorSteps {
+        public static final String body = "{\"name\":\"name\",\"memo\":\"memo\"}";
+
+        public static CachedResponseDecorator jsonResponse(MockServerHttpResponse response, long maxCaptureSize) {
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            return new CachedResponseDecorator(response, maxCaptureSize, new CaptureBufferPool(64 * 1024, 1024 * 1024));
+        }
+
+        public static Flux<DataBuffer> chunks(String text, int chunkSize) {
+            return Flux.range(0, (text.length() + chunkSize - 1) / chunkSize)
+                    .map(i -> text.substring(i * chunkSize, Math.min(text.length(), (i + 1) * chunkSize)))
+                    .map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    @DisplayName("여러 청크 응답 전체 캡처")
+    void multiChunk() {
+        // given
+        var response = new MockServerHttpResponse();
+        var decorator = CachedResponseDecoratorSteps.jsonResponse(response, -1);
+
+        // when
+        StepVerifier.create(decorator.writeWith(CachedResponseDecoratorSteps.chunks(CachedResponseDecoratorSteps.body, 4)))
+                .verifyComplete();
+
+        // then
+        assertEquals(CachedResponseDecoratorSteps.body, decorator.getCachedLogBody().toString());
+        assertEquals(CachedResponseDecoratorSteps.body, response.getBodyAsString().block());
+    }
+
+    @Test
+    @DisplayName("캡처 크기 초과분은 전달만 하고 로그 본문은 잘림")
+    void truncated() {
+        // given
+        var response = new MockServerHttpResponse();
+        var decorator = CachedResponseDecoratorSteps.jsonResponse(response, 10);
+
+        // when
+        StepVerifier.create(decorator.writeAndFlushWith(CachedResponseDecoratorSteps.chunks(CachedResponseDecoratorSteps.body, 4).map(Flux::just)))
+                .verifyComplete();
+        var logBody = decorator.getCachedLogBody();
+
+        // then
+        assertTrue(logBody.isTruncated());
+        assertEquals(CachedResponseDecoratorSteps.body.substring(0, 10), logBody.toString());
+        assertEquals(CachedResponseDecoratorSteps.body.length(), logBody.getOriginalLength());
+        assertEquals(CachedResponseDecoratorSteps.body, response.getBodyAsString().block());
+    }
+
+    @Test
+    @DisplayName("에러 후 캡처된 만큼 로그, 반환 후 빈 본문")
+    void errorAndRelease() {
+        // given
+        var response = new MockServerHttpResponse();
+        var decorator = CachedResponseDecoratorSteps.jsonResponse(response, -1);
+        var body = CachedResponseDecoratorSteps.chunks(CachedResponseDecoratorSteps.body, 4).take(2)
+                .concatWith(Flux.error(new IllegalStateException("write failed")));
+
+        // when
+        StepVerifier.create(decorator.writeWith(body))
+                .verifyError(IllegalStateException.class);
+        var logBody = decorator.getCachedLogBody().toString();
+        decorator.release();
+
+        // then
+        assertEquals(CachedResponseDecoratorSteps.body.substring(0, 8), logBody);
+        assertFalse(decorator.getCachedLogBody().hasText());
+    }
+
+    @Test
+    @DisplayName("스트리밍 마스크가 있으면 캡처 대신 청크를 마스크에 전달")
+    void streamingMask() {
+        // given
+        var response = new MockServerHttpResponse();
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        var written = new StringBuilder();
+        var contentTypes = new ArrayList<MediaType>();
+        var decorator = new CachedResponseDecorator(response, -1, CaptureBufferPool.unpooled(), contentType -> {
+            contentTypes.add(contentType);
+            return new StreamingBodyMask() {
+                @Override
+                public void write(@Nonnull ByteBuffer chunk) {
+                    written.append(StandardCharsets.UTF_8.decode(chunk.duplicate()));
+                }
+
+                @Override
+                @Nonnull
+                public LogBody toLogBody(long originalLength) {
+                    return LogBody.ofMasked(written.toString().replace("memo", "****"), 0);
+                }
+            };
+        });
+
+        // when
+        StepVerifier.create(decorator.writeWith(CachedResponseDecoratorSteps.chunks(CachedResponseDecoratorSteps.body, 4)))
+                .verifyComplete();
+        var logBody = decorator.getCachedLogBody();
+
+        // then
+        assertEquals(List.of(MediaType.APPLICATION_JSON), contentTypes);
+        assertTrue(logBody.isMasked());
+        assertEquals("{\"name\":\"name\",\"****\":\"****\"}", logBody.toString());
+        assertEquals(CachedResponseDecoratorSteps.body, response.getBodyAsString().block());
+    }
+}
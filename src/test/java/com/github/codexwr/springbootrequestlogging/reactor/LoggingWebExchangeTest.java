@@ -0,0 +1,209 @@
+package com.github.codexwr.springbootrequestlogging.reactor;
+
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBufferPool;
+import com.github.codexwr.springbootrequestlogging.configuration.LogExecutor;
+import com.github.codexwr.springbootrequestlogging.configuration.LogPrinter;
+import com.github.codexwr.springbootrequestlogging.configuration.LoggingFilterProperties;
+import com.github.codexwr.springbootrequestlogging.configuration.UsernameProvider;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoggingWebExchangeTest {
+    public static class LoggingWebExchangeSteps {
+        public static LogPrinter recordingPrinter(List<String> lines) {
+            return new LogPrinter() {
+                @Nullable
+                @Override
+                public UsernameProvider usernameProvider() {
+                    return null;
+                }
+
+                @Override
+                public void request(@Nonnull LogItem logItem) {
+                    lines.add(Thread.currentThread().getName() + " " + logItem.requestBody());
+                }
+
+                @Override
+                public void response(@Nullable Long executionTime, @Nonnull HttpStatusCode httpStatus, @Nonnull LogItem logItem) {
+                    lines.add(Thread.currentThread().getName() + " " + httpStatus.value());
+                }
+            };
+        }
+
+        public static LoggingWebExchange webExchange(LogPrinter logPrinter, LogExecutor executor) {
+            return new LoggingWebExchange(MockServerWebExchange.from(MockServerHttpRequest.get("/test/member")), logPrinter, CaptureBufferPool.unpooled(), executor, false, false, false, -1);
+        }
+    }
+
+    @Test
+    @DisplayName("출력을 기다리지 않고 핸들러는 요청 스레드에서 시작")
+    void handlerNotOnLoggingThread() throws Exception {
+        for (var mode : List.of(LoggingFilterProperties.LogExecutionMode.SCHEDULER, LoggingFilterProperties.LogExecutionMode.QUEUE)) {
+            // given
+            var lines = new CopyOnWriteArrayList<String>();
+
+            try (var executor = new LogExecutor(mode, 2, 16)) {
+                var started = new CountDownLatch(2);
+                var latch = new CountDownLatch(1);
+                // every logging thread is busy
+                executor.execute(LogExecutorSteps.blockUntil(started, latch));
+                if (mode == LoggingFilterProperties.LogExecutionMode.SCHEDULER) executor.execute(LogExecutorSteps.blockUntil(started, latch));
+                else started.countDown();
+                assertTrue(started.await(10, TimeUnit.SECONDS));
+
+                var webExchange = LoggingWebExchangeSteps.webExchange(LoggingWebExchangeSteps.recordingPrinter(lines), executor);
+
+                // when
+                var handlerThread = webExchange.enableLogging()
+                        .map(it -> Thread.currentThread().getName())
+                        .block(Duration.ofSeconds(10));
+                var printedBeforeHandler = lines.size();
+                latch.countDown();
+
+                // then
+                assertNotNull(handlerThread);
+                assertFalse(handlerThread.startsWith("request-logging-"), mode + " " + handlerThread);
+                assertEquals(0, printedBeforeHandler);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("스레드 풀에서도 나가는 로그는 들어온 로그가 출력된 뒤에 출력")
+    void exitLineAfterEnterLine() throws Exception {
+        // given
+        var lines = new CopyOnWriteArrayList<String>();
+        var requestPrinting = new CountDownLatch(1);
+        var requestLatch = new CountDownLatch(1);
+        var recordingPrinter = LoggingWebExchangeSteps.recordingPrinter(lines);
+        var logPrinter = new LogPrinter() {
+            @Nullable
+            @Override
+            public UsernameProvider usernameProvider() {
+                return null;
+            }
+
+            @Override
+            public void request(@Nonnull LogItem logItem) {
+                LogExecutorSteps.blockUntil(requestPrinting, requestLatch).run();
+                recordingPrinter.request(logItem);
+            }
+
+            @Override
+            public void response(@Nullable Long executionTime, @Nonnull HttpStatusCode httpStatus, @Nonnull LogItem logItem) {
+                recordingPrinter.response(executionTime, httpStatus, logItem);
+            }
+        };
+
+        try (var executor = new LogExecutor(LoggingFilterProperties.LogExecutionMode.SCHEDULER, 2, 16)) {
+            var webExchange = LoggingWebExchangeSteps.webExchange(logPrinter, executor);
+
+            // when
+            webExchange.enableLogging().block(Duration.ofSeconds(10));
+            assertTrue(requestPrinting.await(10, TimeUnit.SECONDS));
+            webExchange.getResponse().setStatusCode(HttpStatus.OK);
+            webExchange.getResponse().writeWith(Flux.empty()).block(Duration.ofSeconds(10));
+            // the other thread is free, the exit line would be printed if it did not wait
+            Thread.sleep(100);
+            var printedWhileEnterPending = List.copyOf(lines);
+            requestLatch.countDown();
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (executor.getExecutedCount() < 2 && System.nanoTime() < deadline) Thread.onSpinWait();
+
+            // then
+            assertTrue(printedWhileEnterPending.isEmpty(), printedWhileEnterPending::toString);
+            assertEquals(2, lines.size(), lines::toString);
+            assertTrue(lines.get(0).endsWith("null"), lines::toString);
+            assertTrue(lines.get(1).endsWith("200"), lines::toString);
+        }
+    }
+
+    @Test
+    @DisplayName("넘겨진 출력이 끝난 뒤에 요청 본문 해제")
+    void releaseAfterOffloadedPrint() throws Exception {
+        // given
+        var chunks = CachedRequestDecoratorTest.CachedRequestDecoratorSteps.pooledChunks(CachedRequestDecoratorTest.CachedRequestDecoratorSteps.body, 8);
+        var request = MockServerHttpRequest.post("/test/member")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Flux.fromIterable(chunks));
+        var lines = new CopyOnWriteArrayList<String>();
+
+        try (var executor = new LogExecutor(LoggingFilterProperties.LogExecutionMode.QUEUE, 1, 16)) {
+            var started = new CountDownLatch(1);
+            var latch = new CountDownLatch(1);
+            executor.execute(LogExecutorSteps.blockUntil(started, latch));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            var webExchange = new LoggingWebExchange(MockServerWebExchange.from(request), LoggingWebExchangeSteps.recordingPrinter(lines), CaptureBufferPool.unpooled(), executor, true, false, false, -1);
+
+            // when
+            var enabled = webExchange.enableLogging().toFuture();
+            var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (executor.getQueueSize() == 0 && System.nanoTime() < deadline) Thread.onSpinWait();
+            webExchange.release();
+            var retainedWhilePending = chunks.stream().allMatch(chunk -> chunk.getNativeBuffer().refCnt() == 1);
+            latch.countDown();
+            enabled.get(10, TimeUnit.SECONDS);
+            // released by the print thread, right after the print
+            while (executor.getExecutedCount() < 2 && System.nanoTime() < deadline) Thread.onSpinWait();
+
+            // then
+            assertTrue(retainedWhilePending);
+            assertEquals(1, lines.size());
+            assertTrue(lines.get(0).startsWith("request-logging-"), lines::toString);
+            assertTrue(lines.get(0).endsWith(CachedRequestDecoratorTest.CachedRequestDecoratorSteps.body), lines::toString);
+            assertTrue(chunks.stream().allMatch(chunk -> chunk.getNativeBuffer().refCnt() == 0));
+        }
+    }
+
+    @Test
+    @DisplayName("해제된 뒤에 넘겨진 출력은 버림")
+    void dropPrintAfterRelease() {
+        // given
+        var lines = new CopyOnWriteArrayList<String>();
+
+        try (var executor = new LogExecutor(LoggingFilterProperties.LogExecutionMode.INLINE, 1, 16)) {
+            var webExchange = LoggingWebExchangeSteps.webExchange(LoggingWebExchangeSteps.recordingPrinter(lines), executor);
+            webExchange.enableLogging().block(Duration.ofSeconds(10));
+
+            // when
+            webExchange.release();
+            webExchange.release();
+            webExchange.getResponse().setStatusCode(HttpStatus.OK);
+            webExchange.getResponse().writeWith(Flux.empty()).block(Duration.ofSeconds(10));
+
+            // then
+            assertEquals(1, lines.size(), lines::toString);
+            assertTrue(lines.get(0).endsWith("null"), lines::toString);
+        }
+    }
+
+    public static class LogExecutorSteps {
+        public static Runnable blockUntil(CountDownLatch started, CountDownLatch latch) {
+            return () -> {
+                started.countDown();
+                try {
+                    latch.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            };
+        }
+    }
+}
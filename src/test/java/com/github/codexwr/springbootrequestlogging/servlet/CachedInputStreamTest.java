@@ -0,0 +1,263 @@
+package com.github.codexwr.springbootrequestlogging.servlet;
+
+import com.github.codexwr.springbootrequestlogging.configuration.CaptureBufferPool;
+import com.github.codexwr.springbootrequestlogging.configuration.LogBody;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.DelegatingServletInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedInputStreamTest {
+    public static class CachedInputStreamSteps {
+        public static final String body = "{\"name\":\"name\",\"memo\":\"memo\"}";
+
+        public static CachedInputStream cachedInputStream(long maxCaptureSize, long contentLength, Runnable consumedListener) {
+            var inputStream = new DelegatingServletInputStream(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+            return new CachedInputStream(inputStream, maxCaptureSize, contentLength, CaptureBufferPool.unpooled(), consumedListener);
+        }
+
+        /**
+         * Calls the listener from a container thread for each chunk, as a servlet container does for non-blocking reads.
+         */
+        public static class NonBlockingInputStream extends ServletInputStream {
+            private final List<byte[]> chunks;
+            private final Executor containerExecutor;
+            private volatile ByteArrayInputStream current = new ByteArrayInputStream(new byte[0]);
+            private volatile boolean finished = false;
+
+            public NonBlockingInputStream(List<byte[]> chunks, Executor containerExecutor) {
+                this.chunks = chunks;
+                this.containerExecutor = containerExecutor;
+            }
+
+            @Override
+            public boolean isFinished() {
+                return finished;
+            }
+
+            @Override
+            public boolean isReady() {
+                return current.available() > 0;
+            }
+
+            @Override
+            public void setReadListener(ReadListener listener) {
+                containerExecutor.execute(() -> {
+                    try {
+                        for (byte[] chunk : chunks) {
+                            current = new ByteArrayInputStream(chunk);
+                            listener.onDataAvailable();
+                        }
+                        finished = true;
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                });
+            }
+
+            @Override
+            public int read() {
+                if (!isReady()) throw new IllegalStateException("not ready");
+
+                return current.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (!isReady()) throw new IllegalStateException("not ready");
+
+                return current.read(b, off, len);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("읽는 만큼 캡처하고 끝까지 읽으면 알림")
+    void captureOnRead() throws IOException {
+        // given
+        var consumed = new AtomicInteger();
+        var inputStream = CachedInputStreamSteps.cachedInputStream(-1, -1, consumed::incrementAndGet);
+
+        // when
+        var first = inputStream.readNBytes(10);
+        var consumedAfterFirst = consumed.get();
+        var rest = inputStream.readAllBytes();
+
+        // then
+        assertEquals(0, consumedAfterFirst);
+        assertEquals(1, consumed.get());
+        assertEquals(CachedInputStreamSteps.body, new String(first, StandardCharsets.UTF_8) + new String(rest, StandardCharsets.UTF_8));
+        assertEquals(CachedInputStreamSteps.body, inputStream.getCachedLogBody(StandardCharsets.UTF_8).toString());
+    }
+
+    @Test
+    @DisplayName("본문 길이만큼 읽으면 끝을 읽지 않아도 알림")
+    void consumedByContentLength() throws IOException {
+        // given
+        var consumed = new AtomicInteger();
+        var length = CachedInputStreamSteps.body.length();
+        var inputStream = CachedInputStreamSteps.cachedInputStream(-1, length, consumed::incrementAndGet);
+
+        // when
+        inputStream.readNBytes(length);
+
+        // then
+        assertEquals(1, consumed.get());
+    }
+
+    @Test
+    @DisplayName("캡처 크기 초과분은 전달만 하고 로그 본문은 잘림")
+    void truncated() throws IOException {
+        // given
+        var inputStream = CachedInputStreamSteps.cachedInputStream(8, -1, () -> {
+        });
+
+        // when
+        var read = inputStream.readAllBytes();
+        var logBody = inputStream.getCachedLogBody(StandardCharsets.UTF_8);
+
+        // then
+        assertEquals(CachedInputStreamSteps.body, new String(read, StandardCharsets.UTF_8));
+        assertTrue(logBody.isTruncated());
+        assertEquals(CachedInputStreamSteps.body.substring(0, 8), logBody.toString());
+        assertEquals(CachedInputStreamSteps.body.length(), logBody.getOriginalLength());
+    }
+
+    @Test
+    @DisplayName("읽지 않은 본문은 로그 시점에 읽음")
+    void drainForLog() {
+        // given
+        var consumed = new AtomicInteger();
+        var inputStream = CachedInputStreamSteps.cachedInputStream(-1, -1, consumed::incrementAndGet);
+
+        // when
+        var logBody = inputStream.getCachedLogBody(StandardCharsets.UTF_8);
+
+        // then
+        assertEquals(CachedInputStreamSteps.body, logBody.toString());
+        assertEquals(1, consumed.get());
+    }
+
+    @Test
+    @DisplayName("읽지 않은 본문은 캡처 크기까지만 읽고 잘림 표시")
+    void drainUpToCaptureSize() throws IOException {
+        // given
+        var bytes = CachedInputStreamSteps.body.getBytes(StandardCharsets.UTF_8);
+        var source = new ByteArrayInputStream(bytes);
+        var withLength = new CachedInputStream(new DelegatingServletInputStream(source), 8, bytes.length, CaptureBufferPool.unpooled(), () -> {
+        });
+        var withoutLength = CachedInputStreamSteps.cachedInputStream(8, -1, () -> {
+        });
+
+        // when
+        var logBody = withLength.getCachedLogBody(StandardCharsets.UTF_8);
+        var logBodyWithoutLength = withoutLength.getCachedLogBody(StandardCharsets.UTF_8);
+
+        // then
+        assertEquals(CachedInputStreamSteps.body.substring(0, 8), logBody.toString());
+        assertTrue(logBody.isTruncated());
+        assertEquals(bytes.length, logBody.getOriginalLength());
+        assertEquals(bytes.length - 8, source.available());
+        assertEquals(CachedInputStreamSteps.body.substring(0, 8), logBodyWithoutLength.toString());
+        assertTrue(logBodyWithoutLength.isTruncated());
+        assertEquals(LogBody.UNKNOWN_LENGTH, logBodyWithoutLength.getOriginalLength());
+    }
+
+    @Test
+    @DisplayName("논블로킹 읽기 - 컨테이너 콜백에서 읽는 만큼 캡처")
+    void nonBlockingRead() throws Exception {
+        // given
+        var containerExecutor = Executors.newFixedThreadPool(8);
+        var requests = 64;
+        var done = new CountDownLatch(requests);
+        var failures = new ConcurrentLinkedQueue<String>();
+
+        try {
+            for (int i = 0; i < requests; i++) {
+                var body = "{\"index\":" + i + ",\"memo\":\"" + "memo".repeat(i) + "\"}";
+                var bytes = body.getBytes(StandardCharsets.UTF_8);
+                var chunks = List.of(Arrays.copyOfRange(bytes, 0, 5), Arrays.copyOfRange(bytes, 5, bytes.length));
+                var consumed = new AtomicInteger();
+                var inputStream = new CachedInputStream(new CachedInputStreamSteps.NonBlockingInputStream(chunks, containerExecutor), -1, -1, CaptureBufferPool.unpooled(), consumed::incrementAndGet);
+                var read = new ByteArrayOutputStream();
+
+                // when
+                inputStream.setReadListener(new ReadListener() {
+                    @Override
+                    public void onDataAvailable() throws IOException {
+                        var buffer = new byte[4];
+                        while (inputStream.isReady()) read.write(buffer, 0, inputStream.read(buffer));
+                    }
+
+                    @Override
+                    public void onAllDataRead() {
+                        if (consumed.get() != 1) failures.add("not consumed before all data read: " + body);
+                        if (!body.equals(read.toString(StandardCharsets.UTF_8))) failures.add("read: " + read);
+                        if (!body.equals(inputStream.getCachedLogBody(StandardCharsets.UTF_8).toString())) failures.add("captured: " + body);
+                        done.countDown();
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        failures.add(t.toString());
+                        done.countDown();
+                    }
+                });
+            }
+
+            // then
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertTrue(failures.isEmpty(), failures::toString);
+        } finally {
+            containerExecutor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("논블로킹 읽기 - 남은 본문은 읽지 않고 잘림 표시")
+    void nonBlockingNotDrained() {
+        // given
+        var length = CachedInputStreamSteps.body.length();
+        var chunks = List.of(CachedInputStreamSteps.body.getBytes(StandardCharsets.UTF_8));
+        var inputStream = new CachedInputStream(new CachedInputStreamSteps.NonBlockingInputStream(chunks, command -> {
+        }), -1, length, CaptureBufferPool.unpooled(), () -> {
+        });
+
+        // when
+        inputStream.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() {
+            }
+
+            @Override
+            public void onAllDataRead() {
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+        });
+        var logBody = inputStream.getCachedLogBody(StandardCharsets.UTF_8);
+
+        // then
+        assertTrue(logBody.isTruncated());
+        assertEquals(length, logBody.getOriginalLength());
+    }
+}
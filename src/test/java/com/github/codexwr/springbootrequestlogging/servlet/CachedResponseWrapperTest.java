@@ -0,0 +1,75 @@
+package com.github.codexwr.springbootrequestlogging.servlet;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachedResponseWrapperTest {
+    public static class CachedResponseWrapperSteps {
+        public static CachedResponseWrapper jsonResponse(MockHttpServletResponse response, String charset) {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(charset);
+            return new CachedResponseWrapper(response);
+        }
+    }
+
+    @Test
+    @DisplayName("동시에 요청해도 출력 스트림은 하나")
+    void concurrentOutputStream() throws Exception {
+        // given
+        var wrapper = CachedResponseWrapperSteps.jsonResponse(new MockHttpServletResponse(), "UTF-8");
+        var threads = 16;
+        var ready = new CountDownLatch(threads);
+        var streams = ConcurrentHashMap.newKeySet();
+        var executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            // when
+            for (int i = 0; i < threads; i++) {
+                executor.execute(() -> {
+                    ready.countDown();
+                    try {
+                        ready.await();
+                        streams.add(wrapper.getOutputStream());
+                    } catch (Exception e) {
+                        streams.add(e);
+                    }
+                });
+            }
+            executor.shutdown();
+
+            // then
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(Set.of(wrapper.getOutputStream()), streams);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("writer는 응답 charset으로 기록")
+    void writerCharset() throws Exception {
+        // given
+        var response = new MockHttpServletResponse();
+        var wrapper = CachedResponseWrapperSteps.jsonResponse(response, "UTF-16BE");
+
+        // when
+        var writer = wrapper.getWriter();
+        writer.write("{\"name\":\"홍길동\"}");
+        writer.flush();
+
+        // then
+        assertSame(writer, wrapper.getWriter());
+        assertEquals("{\"name\":\"홍길동\"}", response.getContentAsString());
+        assertEquals("{\"name\":\"홍길동\"}", wrapper.getCachedLogBody().toString());
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.codexwr.springbootrequestlogging.servlet;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentTypesTest {
+    @Test
+    @DisplayName("파싱 결과 공유")
+    void parse() {
+        // when
+        var first = ContentTypes.parseMediaType("application/json;charset=UTF-8");
+        var second = ContentTypes.parseMediaType("application/json;charset=UTF-8");
+
+        // then
+        assertSame(first, second);
+        assertEquals(StandardCharsets.UTF_8, first.getCharset());
+        assertNull(ContentTypes.parseMediaType("not a content type"));
+        assertNull(ContentTypes.parseMediaType(null));
+        assertEquals(StandardCharsets.UTF_16BE, ContentTypes.parseCharset("UTF-16BE"));
+        assertEquals(StandardCharsets.UTF_8, ContentTypes.parseCharset("unknown-charset"));
+        assertEquals(StandardCharsets.UTF_8, ContentTypes.parseCharset(null));
+    }
+
+    @Test
+    @DisplayName("콘텐츠 타입이 바뀌면 다시 판단")
+    void matcher() {
+        // given
+        var matcher = new ContentTypes.Matcher(MediaType.APPLICATION_JSON);
+
+        // when & then
+        assertTrue(matcher.isCompatibleWith("application/json"));
+        assertTrue(matcher.isCompatibleWith("application/json"));
+        assertFalse(matcher.isCompatibleWith("text/html"));
+        assertFalse(matcher.isCompatibleWith(null));
+        assertTrue(matcher.isCompatibleWith("application/json;charset=UTF-8"));
+    }
+}
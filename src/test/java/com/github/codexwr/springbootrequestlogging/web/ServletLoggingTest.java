@@ -1,12 +1,19 @@
 package com.github.codexwr.springbootrequestlogging.web;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.codexwr.springbootrequestlogging.configuration.RoutePolicy;
 import jakarta.servlet.ServletException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -18,12 +25,18 @@ import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
 @ActiveProfiles("servlet")
 public class ServletLoggingTest {
     @Autowired
@@ -54,6 +67,32 @@ public class ServletLoggingTest {
                 .andDo(MockMvcResultHandlers.print());
     }
 
+    @Test
+    @DisplayName("logger off - no capture, no log")
+    public void testLoggerOff(CapturedOutput output) throws Exception {
+        // given
+        var logger = (Logger) LoggerFactory.getLogger("LogPrinter");
+        var level = logger.getLevel();
+        logger.setLevel(Level.OFF);
+
+        try {
+            // when
+            var req = post("/test/member")
+                    .headers(headers)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(new WebTestApplication.Member("Bob", 30)));
+            var result = mvc.perform(req)
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            // then
+            assertFalse(output.getOut().contains("\"name\":\"Bob\""));
+            assertNull(result.getRequest().getAttribute(RoutePolicy.ATTRIBUTE));
+        } finally {
+            logger.setLevel(level);
+        }
+    }
+
     @Test
     @DisplayName("get all member")
     public void testGetAllMember() throws Exception {
@@ -80,9 +119,35 @@ public class ServletLoggingTest {
                 .andDo(MockMvcResultHandlers.print());
     }
 
+    @Test
+    @DisplayName("get member by id async")
+    public void testGetMemberByIdAsync(CapturedOutput output) throws Exception {
+        // given
+        var memberId = 1;
+
+        // when
+        var req = get("/test/member/{id}/async", memberId)
+                .headers(headers);
+        var result = mvc.perform(req)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        var exitLinesBeforeDispatch = exitLines(output, "/test/member/1/async");
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andDo(MockMvcResultHandlers.print());
+
+        // then
+        assertEquals(0, exitLinesBeforeDispatch);
+        assertEquals(1, exitLines(output, "/test/member/1/async"));
+    }
+
+    private static long exitLines(CapturedOutput output, String uri) {
+        return output.getOut().lines().filter(line -> line.contains("[-]") && line.contains(uri)).count();
+    }
+
     @Test
     @DisplayName("create member avatar")
-    public void testCreateMemberAvatar() throws Exception {
+    public void testCreateMemberAvatar(CapturedOutput output) throws Exception {
         // given
         var memberId = 1;
         var fileResource = new ClassPathResource("static/unsplash.jpg");
@@ -106,6 +171,9 @@ public class ServletLoggingTest {
         mvc.perform(req)
                 .andExpect(status().isOk())
                 .andDo(MockMvcResultHandlers.print());
+
+        // then
+        assertTrue(output.getOut().contains("\"avatar\":[\"unsplash.jpg (" + fileResource.contentLength() + " bytes)\"]"));
     }
 
     @Test
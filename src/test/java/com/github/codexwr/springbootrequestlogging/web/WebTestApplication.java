@@ -10,6 +10,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import reactor.core.publisher.Mono;
 
+import java.util.concurrent.Callable;
+
 @SpringBootApplication
 @RestController
 @RequestMapping(value = "/test", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -47,6 +49,14 @@ public class WebTestApplication {
         return ResponseEntity.ok(new ResponseDto(200, "OK"));
     }
 
+    @GetMapping("/member/{id}/async")
+    public Callable<ResponseEntity<ResponseDto>> getMemberAsync(@PathVariable int id) {
+        return () -> {
+            log.info("get member async: {}", id);
+            return ResponseEntity.ok(new ResponseDto(200, "OK"));
+        };
+    }
+
     @PostMapping(value = "/member/{id}/avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<ResponseDto> createAvatar(@PathVariable int id, MultipartMemberAvatar avatar) {
         log.info("create avatar: {}", avatar);